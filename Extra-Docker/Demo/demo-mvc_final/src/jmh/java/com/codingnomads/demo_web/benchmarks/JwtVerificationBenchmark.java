@@ -0,0 +1,54 @@
+package com.codingnomads.demo_web.benchmarks;
+
+import com.codingnomads.demo_web.services.JwtKeyRing;
+import com.codingnomads.demo_web.services.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares verifying an API token the old way (a new JwtParser per call)
+ * with the shared, pre-built parser in {@link JwtService}.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=JwtVerification}; the gc profiler reports
+ * {@code gc.alloc.rate.norm}, i.e. bytes allocated per verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark";
+
+    private JwtKeyRing keyRing;
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        keyRing = new JwtKeyRing("k2", SECRET, Map.of("k1", "retired-secret-retired-secret-retired-secret"));
+        jwtService = new JwtService(keyRing, 24);
+        token = jwtService.issue("benchmark-user", Duration.ofHours(1)).token();
+    }
+
+    /**
+     * What JwtService.parseAndValidate used to do: build a fresh parser for every request.
+     */
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parser()
+                .verifyWith(keyRing.activeKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return jwtService.parseAndValidate(token);
+    }
+}
@@ -0,0 +1,105 @@
+package com.codingnomads.demo_web.benchmarks;
+
+import com.codingnomads.demo_web.DemoWebApplication;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Page-view latency of a logged-in user ({@code GET /profile}) with each session store:
+ * plain JDBC, JDBC behind the near-cache, and Redis ({@code redis-session} profile).
+ * <p>
+ * The app runs in-process on H2, and Redis is an in-process server (jedis-mock), so the absolute numbers only
+ * compare the stores with each other. DB load is reported by the {@code dbConnections} counter (Hikari connection
+ * checkouts) next to {@code pageViews}, both totals over the measured iterations. The profile page itself loads the
+ * user, so one checkout per page view is the floor.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=SessionStore}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SessionStoreBenchmark {
+
+    @Param({"jdbc", "jdbc-near-cache", "redis"})
+    public String store;
+
+    private RedisServer redis;
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Cookie session;
+    private Timer connectionUsage;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Passed as command line arguments so they win over application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + store + ";DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.boot.admin.client.enabled=false",
+                "--session.near-cache.enabled=" + store.equals("jdbc-near-cache")));
+        SpringApplicationBuilder app = new SpringApplicationBuilder(DemoWebApplication.class);
+        if (store.equals("redis")) {
+            redis = RedisServer.newRedisServer().start();
+            args.add("--spring.data.redis.host=" + redis.getHost());
+            args.add("--spring.data.redis.port=" + redis.getBindPort());
+            app.profiles("redis-session");
+        }
+        context = app.run(args.toArray(String[]::new));
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSessionRepositoryFilter", Filter.class))
+                .apply(springSecurity())
+                .build();
+        session = mockMvc.perform(formLogin("/login").user("user").password("user"))
+                .andReturn().getResponse().getCookie("SESSION");
+        // First view stores the CSRF token in the session; measure the steady state after it
+        mockMvc.perform(get("/profile").cookie(session));
+        connectionUsage = context.getBean(MeterRegistry.class).get("hikaricp.connections.usage").timer();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class DbLoad {
+        public long pageViews;
+        public long dbConnections;
+    }
+
+    @Benchmark
+    public int pageView(DbLoad dbLoad) throws Exception {
+        long before = connectionUsage.count();
+        int status = mockMvc.perform(get("/profile").cookie(session)).andReturn().getResponse().getStatus();
+        dbLoad.pageViews++;
+        dbLoad.dbConnections += connectionUsage.count() - before;
+        return status;
+    }
+}
@@ -0,0 +1,112 @@
+package com.codingnomads.demo_web.benchmarks;
+
+import com.codingnomads.demo_web.DemoWebApplication;
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.repositories.TodoRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.codingnomads.demo_web.services.ApiTokenService;
+import com.codingnomads.demo_web.services.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Rows/sec written through {@code POST /api/todos} (one request and one INSERT per todo) versus
+ * {@code POST /api/todos/batch} ({@value #ROWS} todos per request, one JDBC batch).
+ * <p>
+ * Both run in-process against H2, so the numbers only compare the two endpoints with each other; against MySQL
+ * the gap grows with network round trips, which the batch endpoint (with {@code rewriteBatchedStatements=true})
+ * pays once per request instead of once per row. The todos table is emptied after every iteration.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=TodoBatch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TodoBatchBenchmark {
+
+    static final int ROWS = 100;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private TodoRepository todoRepository;
+    private String authorization;
+    private String batchBody;
+
+    @Setup
+    public void setUp() {
+        // Passed as command line arguments so they win over application.properties
+        context = new SpringApplicationBuilder(DemoWebApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench-batch;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.boot.admin.client.enabled=false",
+                "--api.rate-limit.enabled=false");
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+        todoRepository = context.getBean(TodoRepository.class);
+
+        UserPrincipal user = UserPrincipal.from(context.getBean(UserRepository.class).findByUsername("user").orElseThrow());
+        ApiToken session = context.getBean(ApiTokenService.class).generate(user, Duration.ofHours(1));
+        authorization = "Bearer " + context.getBean(JwtService.class)
+                .issueAccessToken(user, session.getJti(), session.getExpiresAt()).token();
+
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < ROWS; i++) {
+            items.add("{\"text\":\"todo " + i + "\"}");
+        }
+        batchBody = items.toString();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTodos() {
+        todoRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int singleItem() throws Exception {
+        int status = 0;
+        for (int i = 0; i < ROWS; i++) {
+            status = mockMvc.perform(post("/api/todos")
+                            .header("Authorization", authorization)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"text\":\"todo " + i + "\"}"))
+                    .andReturn().getResponse().getStatus();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int batch() throws Exception {
+        return mockMvc.perform(post("/api/todos/batch")
+                        .header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchBody))
+                .andReturn().getResponse().getStatus();
+    }
+}
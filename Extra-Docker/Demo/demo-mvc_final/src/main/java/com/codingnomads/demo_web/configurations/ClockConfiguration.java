@@ -0,0 +1,19 @@
+package com.codingnomads.demo_web.configurations;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * The clock that time-dependent services (revocation index, login cookies and their watermarks) read "now" from,
+ * so tests can move time forward instead of sleeping.
+ */
+@Configuration
+public class ClockConfiguration {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
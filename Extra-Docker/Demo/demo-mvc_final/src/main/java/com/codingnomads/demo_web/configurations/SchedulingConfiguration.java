@@ -0,0 +1,12 @@
+package com.codingnomads.demo_web.configurations;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled background jobs (revocation index refresh, ...).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
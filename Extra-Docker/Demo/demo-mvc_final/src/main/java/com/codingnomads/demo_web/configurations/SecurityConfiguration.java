@@ -1,10 +1,14 @@
 package com.codingnomads.demo_web.configurations;
 
-import com.codingnomads.demo_web.models.ApiToken;
-import com.codingnomads.demo_web.models.User;
-import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.services.ApiRateLimiter;
+import com.codingnomads.demo_web.services.ApiTokenUsageTracker;
 import com.codingnomads.demo_web.services.JwtService;
-import com.codingnomads.demo_web.services.UserService;
+import com.codingnomads.demo_web.services.SessionWatermarkService;
+import com.codingnomads.demo_web.sessions.SignedCookieSecurityContextRepository;
+import com.codingnomads.demo_web.services.TokenDigest;
+import com.codingnomads.demo_web.services.TokenRevocationIndex;
+import com.codingnomads.demo_web.services.VerifiedTokenCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
@@ -14,6 +18,9 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -36,6 +43,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.savedrequest.CookieRequestCache;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -44,8 +53,9 @@ import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointR
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
 
 /**
  * This class configures the security for our application.
@@ -53,12 +63,19 @@ import java.util.Optional;
  * <p>
  * We use two separate 'SecurityFilterChains' to handle two different types of authentication:
  * 1. JWT-based (Stateless) for the /api/** endpoints.
- * 2. Session-based (Stateful) for the MVC web pages.
+ * 2. Session-based (Stateful) for the MVC web pages, or optionally a signed login cookie.
  */
 @Configuration
 @RequiredArgsConstructor
 public class SecurityConfiguration {
 
+    /**
+     * Request attribute holding the jti of the API (refresh) token behind the access token that authenticated the request.
+     */
+    public static final String API_TOKEN_ID_ATTRIBUTE = "api.token.id";
+
+    private static final String REFRESH_PATH = "/api/auth/refresh";
+
     private final ObjectMapper objectMapper;
 
 //    @Bean
@@ -131,7 +148,7 @@ public class SecurityConfiguration {
      */
     @Bean
     @Order(1) // Higher priority to catch /api/** requests first
-    public SecurityFilterChain apiSecurity(HttpSecurity http, @Lazy OncePerRequestFilter jwtAuthenticationFilter, OncePerRequestFilter mdcFilter) throws Exception {
+    public SecurityFilterChain apiSecurity(HttpSecurity http, @Lazy OncePerRequestFilter jwtAuthenticationFilter, OncePerRequestFilter apiRateLimitFilter, OncePerRequestFilter mdcFilter) throws Exception {
         http
                 .securityMatcher("/api/**") // Only apply this chain to URLs starting with /api/
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF as JWT is resistant to it and it's hard to use with APIs
@@ -143,10 +160,14 @@ public class SecurityConfiguration {
                         .accessDeniedHandler((request, response, accessDeniedException) -> writeProblem(request, response, HttpStatus.FORBIDDEN, accessDeniedException.getMessage() == null ? "Forbidden" : accessDeniedException.getMessage()))
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // Refresh tokens are exchanged here; the endpoint validates them itself
+                        .requestMatchers(REFRESH_PATH).permitAll()
                         .anyRequest().authenticated() // All API requests must be authenticated
                 )
                 // Add our custom JWT filter before the standard username/password filter
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Throttle right after authentication, so we know which token and user to charge (refresh: which address)
+                .addFilterBefore(apiRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterAfter(mdcFilter, UsernamePasswordAuthenticationFilter.class)
                 // Explicitly disable form login and logout for API as they are for browsers
                 .formLogin(AbstractHttpConfigurer::disable)
@@ -155,13 +176,44 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Optional stateless login for the web pages: the logged-in user lives in a signed cookie instead of the session store.
+     * There is no default secret; startup fails if the feature is on without one.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mvc.auth-cookie.enabled", havingValue = "true")
+    public SignedCookieSecurityContextRepository authCookieRepository(
+            @Value("${mvc.auth-cookie.secret:}") String secret,
+            @Value("${mvc.auth-cookie.name:AUTH}") String cookieName,
+            @Value("${mvc.auth-cookie.ttl:P7D}") Duration ttl,
+            @Value("${server.servlet.session.cookie.secure:false}") boolean secure,
+            SessionWatermarkService sessionWatermarkService,
+            Clock clock) {
+        return new SignedCookieSecurityContextRepository(secret, cookieName, ttl, secure, sessionWatermarkService, clock);
+    }
+
     /**
      * Configuration for the Web Pages (MVC).
      * It uses standard Session-based authentication with a login form.
+     * <p>
+     * With {@code mvc.auth-cookie.enabled=true} the login is kept in a signed cookie instead (see
+     * {@link SignedCookieSecurityContextRepository}), and the CSRF token and saved request move to cookies too, so
+     * that ordinary page views neither read nor create a session.
      */
     @Bean
     @Order(2) // Lower priority, catches everything else that wasn't /api/**
-    public SecurityFilterChain mvcSecurity(HttpSecurity http, OncePerRequestFilter mdcFilter) throws Exception {
+    public SecurityFilterChain mvcSecurity(HttpSecurity http, OncePerRequestFilter mdcFilter,
+                                           ObjectProvider<SignedCookieSecurityContextRepository> authCookieRepository) throws Exception {
+        SignedCookieSecurityContextRepository cookieRepository = authCookieRepository.getIfAvailable();
+        if (cookieRepository != null) {
+            http
+                    .securityContext(sc -> sc.securityContextRepository(cookieRepository))
+                    .csrf(csrf -> csrf.csrfTokenRepository(new CookieCsrfTokenRepository()))
+                    .requestCache(cache -> cache.requestCache(new CookieRequestCache()))
+                    .logout(logout -> logout
+                            .addLogoutHandler(cookieRepository)
+                            .deleteCookies(cookieRepository.getCookieName()));
+        }
         http
                 .addFilterAfter(mdcFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
@@ -190,11 +242,18 @@ public class SecurityConfiguration {
     /**
      * This filter intercepts every request to /api/** to check for a valid JWT.
      * It's defined as a Bean so it can be injected with other services.
+     * <p>
+     * Only short-lived access tokens are accepted here. They carry the user id, username and roles, so a request is
+     * authorized from signature + expiry + "refresh token not in the {@link TokenRevocationIndex}" alone - no database.
+     * Access tokens that were verified once are remembered in the {@link VerifiedTokenCache}, so repeated calls with the
+     * same token also skip JWT parsing. Refresh tokens are only good for {@code /api/auth/refresh}.
+     * Each authenticated call is counted against its refresh token in the {@link ApiTokenUsageTracker}.
      */
     @Bean
     public OncePerRequestFilter jwtAuthenticationFilter(JwtService jwtService,
-                                                        ApiTokenRepository apiTokenRepository,
-                                                        UserService userService) {
+                                                        TokenRevocationIndex revocationIndex,
+                                                        VerifiedTokenCache verifiedTokenCache,
+                                                        ApiTokenUsageTracker usageTracker) {
         return new OncePerRequestFilter() {
             @Override
             protected void doFilterInternal(HttpServletRequest request,
@@ -202,7 +261,7 @@ public class SecurityConfiguration {
                                             FilterChain filterChain) throws ServletException, IOException {
                 String path = request.getRequestURI();
                 // If it's not an API request, just pass it through to the next filter
-                if (path == null || !path.startsWith("/api/")) {
+                if (path == null || !path.startsWith("/api/") || path.equals(REFRESH_PATH)) {
                     filterChain.doFilter(request, response);
                     return;
                 }
@@ -215,36 +274,53 @@ public class SecurityConfiguration {
                 }
 
                 String token = auth.substring(7); // Remove "Bearer " prefix
+
+                // Fast path: these exact token bytes were verified before and have not expired
+                String digest = TokenDigest.sha256Hex(token);
+                VerifiedTokenCache.Entry cached = verifiedTokenCache.get(digest);
+                if (cached != null) {
+                    // Revocations made on other nodes only reach us through the index, so check it on hits too
+                    if (revocationIndex.isRevoked(cached.jti())) {
+                        writeProblem(request, response, HttpStatus.UNAUTHORIZED, "Token expired or revoked");
+                        return;
+                    }
+                    authenticate(request, cached.principal(), cached.jti());
+                    usageTracker.record(cached.jti());
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+
                 try {
-                    // Parse and validate the JWT using our service
+                    // Parse and validate the JWT using our service (signature and expiry)
                     Claims claims = jwtService.parseAndValidate(token);
-                    String username = claims.getSubject();
 
                     // Check if it's the correct type of token
                     Object typ = claims.get("typ");
-                    if (!"api".equals(typ)) {
+                    if (JwtService.TYP_REFRESH.equals(typ)) {
+                        writeProblem(request, response, HttpStatus.FORBIDDEN, "Refresh tokens are only accepted at " + REFRESH_PATH);
+                        return;
+                    }
+                    if (!JwtService.TYP_ACCESS.equals(typ)) {
                         writeProblem(request, response, HttpStatus.FORBIDDEN, "Not an API token");
                         return;
                     }
 
-                    // Verify the token exists in our database and isn't revoked
-                    Optional<ApiToken> tokenOpt = apiTokenRepository.findByToken(token);
-                    if (tokenOpt.isEmpty()) {
-                        writeProblem(request, response, HttpStatus.UNAUTHORIZED, "Token not found");
+                    // Revoking the refresh token also kills the access tokens minted from it
+                    String refreshJti = claims.get(JwtService.CLAIM_REFRESH_ID, String.class);
+                    if (refreshJti == null) {
+                        writeProblem(request, response, HttpStatus.UNAUTHORIZED, "Invalid token");
                         return;
                     }
-
-                    ApiToken apiToken = tokenOpt.get();
-                    if (apiToken.isRevoked() || apiToken.getExpiresAt().isBefore(Instant.now())) {
+                    if (revocationIndex.isRevoked(refreshJti)) {
                         writeProblem(request, response, HttpStatus.UNAUTHORIZED, "Token expired or revoked");
                         return;
                     }
 
-                    // If everything is OK, tell Spring Security who this user is
-                    User user = (User) userService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    // If everything is OK, tell Spring Security who this user is - straight from the claims
+                    UserPrincipal principal = jwtService.principalOf(claims);
+                    authenticate(request, principal, refreshJti);
+                    usageTracker.record(refreshJti);
+                    verifiedTokenCache.put(digest, new VerifiedTokenCache.Entry(refreshJti, principal.id(), principal, claims.getExpiration().toInstant()));
 
                     // Proceed to the next filter (and eventually the Controller)
                     filterChain.doFilter(request, response);
@@ -257,6 +333,55 @@ public class SecurityConfiguration {
         };
     }
 
+    private void authenticate(HttpServletRequest request, UserPrincipal principal, String jti) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        request.setAttribute(API_TOKEN_ID_ATTRIBUTE, jti);
+    }
+
+    /**
+     * Rate limits authenticated /api/** requests per token and per user, and {@code /api/auth/refresh} per client
+     * address (see {@link ApiRateLimiter}). Every response carries the RateLimit-* headers; rejected requests get
+     * a 429 with Retry-After.
+     */
+    @Bean
+    public OncePerRequestFilter apiRateLimitFilter(ApiRateLimiter rateLimiter) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request,
+                                            HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                Object tokenId = request.getAttribute(API_TOKEN_ID_ATTRIBUTE);
+                ApiRateLimiter.Decision decision;
+                if (!rateLimiter.isEnabled()) {
+                    filterChain.doFilter(request, response);
+                    return;
+                } else if (REFRESH_PATH.equals(request.getRequestURI())) {
+                    decision = rateLimiter.tryAcquireRefresh(request.getRemoteAddr());
+                } else if (tokenId != null && authentication != null
+                        && authentication.getPrincipal() instanceof UserPrincipal principal) {
+                    decision = rateLimiter.tryAcquire(tokenId.toString(), principal.id(), principal.authorities());
+                } else {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+
+                response.setHeader("RateLimit-Limit", String.valueOf(decision.limit().capacity()));
+                response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+                response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+                response.setHeader("RateLimit-Policy", decision.limit().capacity() + ";w=" + decision.limit().period().toSeconds());
+                if (!decision.allowed()) {
+                    response.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+                    writeProblem(request, response, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry in " + decision.retryAfterSeconds() + "s");
+                    return;
+                }
+                filterChain.doFilter(request, response);
+            }
+        };
+    }
+
     private void writeProblem(HttpServletRequest request,
                               HttpServletResponse response,
                               HttpStatus status,
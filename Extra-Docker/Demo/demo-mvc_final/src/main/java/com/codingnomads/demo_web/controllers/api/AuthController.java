@@ -0,0 +1,43 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.exceptions.InvalidTokenException;
+import com.codingnomads.demo_web.services.ApiTokenService;
+import com.codingnomads.demo_web.services.JwtService;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Token exchange for API clients.
+ * A client keeps the refresh token it got from the profile page and calls {@code POST /api/auth/refresh}
+ * with it whenever its short-lived access token is about to expire.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class AuthController {
+    private final ApiTokenService apiTokenService;
+
+    public record AccessTokenResponse(@JsonProperty("access_token") String accessToken,
+                                      @JsonProperty("token_type") String tokenType,
+                                      @JsonProperty("expires_in") long expiresIn) {
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AccessTokenResponse> refresh(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new InvalidTokenException("Missing or invalid Authorization header");
+        }
+        JwtService.IssuedToken issued = apiTokenService.refresh(authorization.substring(7));
+        long expiresIn = Math.max(0L, Duration.between(Instant.now(), issued.expiresAt()).toSeconds());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new AccessTokenResponse(issued.token(), "Bearer", expiresIn));
+    }
+}
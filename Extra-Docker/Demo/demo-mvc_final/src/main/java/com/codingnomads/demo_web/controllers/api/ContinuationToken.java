@@ -0,0 +1,44 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.exceptions.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset paging: the id of the last row a client has seen, versioned and base64url-encoded
+ * so clients treat it as a token rather than a number to do arithmetic on.
+ * The empty string stands for "from the beginning".
+ */
+final class ContinuationToken {
+
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Long.BYTES;
+
+    private ContinuationToken() {
+    }
+
+    static String encode(long lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH).put(VERSION).putLong(lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * The id to continue after; 0 (before every id) for an empty cursor.
+     */
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        return ByteBuffer.wrap(bytes, 1, Long.BYTES).getLong();
+    }
+}
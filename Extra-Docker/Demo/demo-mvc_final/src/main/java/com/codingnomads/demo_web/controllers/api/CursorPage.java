@@ -0,0 +1,30 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * One keyset page. {@code nextCursor} is passed back as {@code cursor} to get the following page, and {@code next}
+ * is the ready-made link to it; both are null on the last page.
+ */
+public record CursorPage<T>(List<T> content, int size, String nextCursor, String next) {
+
+    /**
+     * @param rows up to {@code size + 1} rows in seek order; an extra row only tells that another page exists
+     * @param key  the seek key of a row
+     */
+    static <T> CursorPage<T> of(List<T> rows, int size, ToLongFunction<T> key) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, size, null, null);
+        }
+        List<T> content = rows.subList(0, size);
+        String nextCursor = ContinuationToken.encode(key.applyAsLong(content.get(size - 1)));
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", nextCursor)
+                .replaceQueryParam("size", size)
+                .toUriString();
+        return new CursorPage<>(content, size, nextCursor, next);
+    }
+}
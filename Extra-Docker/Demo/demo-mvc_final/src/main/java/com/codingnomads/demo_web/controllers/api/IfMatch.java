@@ -0,0 +1,37 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.exceptions.VersionConflictException;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Item ETags are the entity's {@code @Version} in quotes, e.g. {@code "3"}. An If-Match header turns an update
+ * or delete into "only if it is still at this version".
+ */
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    static String etag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * The version the client expects, or null for no condition (no header, or {@code *}).
+     * Weak or unparseable tags can never match and fail the precondition.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through
+            }
+        }
+        throw new VersionConflictException(HttpHeaders.IF_MATCH + " does not match the current version");
+    }
+}
@@ -1,13 +1,26 @@
 package com.codingnomads.demo_web.controllers.api;
 
 import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoBatch;
+import com.codingnomads.demo_web.models.TodoSearchHit;
+import com.codingnomads.demo_web.models.TodoStats;
+import com.codingnomads.demo_web.services.TodoBatchService;
+import com.codingnomads.demo_web.services.TodoDataVersionService;
+import com.codingnomads.demo_web.services.TodoSearchService;
 import com.codingnomads.demo_web.services.TodoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * REST Controller for managing Todos via an API.
@@ -18,15 +31,69 @@ import java.util.List;
 @RequestMapping("/api/todos")
 @RequiredArgsConstructor
 public class TodoController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> SORTABLE = Set.of("id", "text", "done");
+
     private final TodoService todoService;
+    private final TodoBatchService todoBatchService;
+    private final TodoDataVersionService todoDataVersionService;
+    private final TodoSearchService todoSearchService;
+
+    /**
+     * One page of todos plus what a client needs to fetch the rest; {@code next} is null on the last page.
+     */
+    public record TodoPage(List<Todo> content, int page, int size, long totalElements, int totalPages, String next) {
+    }
+
+    /**
+     * One page of search results, best match first; {@code next} is null on the last page.
+     */
+    public record SearchPage(List<TodoSearchHit> content, int page, int size, String next) {
+    }
 
     /**
-     * GET /api/todos - Retrieve all todos.
-     * Optional 'done' parameter allows filtering by completion status.
+     * GET /api/todos?done=&page=0&size=20&sort=text,desc - Retrieve a page of todos.
+     * Optional 'done' parameter allows filtering by completion status; filtering and paging happen in the database.
+     * 'sort' takes one of id, text or done, optionally followed by ",asc" or ",desc"; anything else sorts by id.
+     * The response carries an ETag; a matching If-None-Match gets 304 Not Modified before anything is loaded.
      */
     @GetMapping("")
-    public List<Todo> index(@RequestParam(required = false, name = "done") Boolean done) {
-        return todoService.getAllTodos(done);
+    public TodoPage index(@RequestParam(required = false, name = "done") Boolean done,
+                          @RequestParam(defaultValue = "0") int page,
+                          @RequestParam(defaultValue = "20") int size,
+                          @RequestParam(defaultValue = "id") String sort,
+                          WebRequest request) {
+        if (request.checkNotModified(todoDataVersionService.currentUserETag())) {
+            return null;
+        }
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(MAX_PAGE_SIZE, size)), sortOf(sort));
+        Page<Todo> todos = todoService.getTodos(done, pageRequest);
+        String next = todos.hasNext()
+                ? ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("page", pageRequest.getPageNumber() + 1)
+                        .replaceQueryParam("size", pageRequest.getPageSize())
+                        .toUriString()
+                : null;
+        return new TodoPage(todos.getContent(), todos.getNumber(), todos.getSize(),
+                todos.getTotalElements(), todos.getTotalPages(), next);
+    }
+
+    /**
+     * GET /api/todos?cursor=&size=20 - Keyset paging in id order: start with an empty cursor and pass back the
+     * 'nextCursor' of each page. Unlike page numbers, the cost of a page does not grow with how deep it is.
+     */
+    @GetMapping(value = "", params = "cursor")
+    public CursorPage<Todo> scroll(@RequestParam(required = false, name = "done") Boolean done,
+                                   @RequestParam(defaultValue = "") String cursor,
+                                   @RequestParam(defaultValue = "20") int size,
+                                   WebRequest request) {
+        if (request.checkNotModified(todoDataVersionService.currentUserETag())) {
+            return null;
+        }
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+        // One extra row tells whether there is a next page
+        List<Todo> todos = todoService.getTodosAfter(done, ContinuationToken.decode(cursor), limit + 1);
+        return CursorPage.of(todos, limit, Todo::getId);
     }
 
     /**
@@ -34,16 +101,52 @@ public class TodoController {
      * This demonstrates how to use request headers for routing/logic.
      */
     @RequestMapping(path = "", headers = "X-Param=Count", method = RequestMethod.GET)
-    public int count() {
-        return todoService.getAllTodos(null).size();
+    public long count() {
+        return todoService.getStats().total();
+    }
+
+    /**
+     * GET /api/todos/stats - Total, done, open, per-list and unlisted counts of the caller's todos.
+     */
+    @GetMapping("/stats")
+    public TodoStats stats() {
+        return todoService.getStats();
+    }
+
+    /**
+     * GET /api/todos/search?q=&page=0&size=20 - The caller's todos whose text matches 'q', ranked by relevance.
+     * A query without any words finds nothing.
+     * Pages are fetched one row long to tell whether there is a next one, so no matches are counted.
+     * Carries the same ETag as GET /api/todos.
+     */
+    @GetMapping("/search")
+    public SearchPage search(@RequestParam(defaultValue = "") String q,
+                             @RequestParam(defaultValue = "0") int page,
+                             @RequestParam(defaultValue = "20") int size,
+                             WebRequest request) {
+        if (request.checkNotModified(todoDataVersionService.currentUserETag())) {
+            return null;
+        }
+        int pageNumber = Math.max(0, page);
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+        List<TodoSearchHit> hits = todoSearchService.search(q, pageNumber * limit, limit + 1);
+        String next = hits.size() > limit
+                ? ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("page", pageNumber + 1)
+                        .replaceQueryParam("size", limit)
+                        .toUriString()
+                : null;
+        return new SearchPage(hits.size() > limit ? hits.subList(0, limit) : hits, pageNumber, limit, next);
     }
 
     /**
      * GET /api/todos/{id} - Retrieve a specific todo by its ID.
+     * The ETag is the todo's version; send it back as If-Match to make a write conditional.
      */
     @GetMapping("/{id}")
     public ResponseEntity<Todo> show(@PathVariable Long id) {
-        return ResponseEntity.ok(todoService.getTodoById(id));
+        Todo todo = todoService.getTodoById(id);
+        return ResponseEntity.ok().eTag(IfMatch.etag(todo.getVersion())).body(todo);
     }
 
     /**
@@ -56,36 +159,81 @@ public class TodoController {
         return todoService.createTodo(todo);
     }
 
+    /**
+     * POST /api/todos/batch - Create many todos at once, in one transaction and one JDBC batch.
+     * Returns the new ids in request order.
+     */
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<TodoBatch.Result> createBatch(@RequestBody List<Todo> todos) {
+        return todoBatchService.apply(new TodoBatch(todos, null, null));
+    }
+
+    /**
+     * PATCH /api/todos/batch - Apply {"create": [...], "update": [...], "delete": [ids]} in one transaction.
+     * Every item gets its own result; items that are not found do not fail the others.
+     */
+    @PatchMapping("/batch")
+    public List<TodoBatch.Result> applyBatch(@RequestBody TodoBatch batch) {
+        return todoBatchService.apply(batch);
+    }
+
     /**
      * PUT /api/todos/{id} - Update an existing todo.
+     * With If-Match it only applies if the todo is still at that version, otherwise 412 Precondition Failed.
      */
     @PutMapping("/{id}")
-    public Todo update(@PathVariable Long id, @RequestBody Todo todo) {
-        return todoService.updateTodo(id, todo);
+    public ResponseEntity<Todo> update(@PathVariable Long id, @RequestBody Todo todo,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Todo updated = todoService.updateTodo(id, todo, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(IfMatch.etag(updated.getVersion())).body(updated);
     }
 
     /**
      * PATCH /api/todos/{id}/done - Mark a todo as completed.
+     * Returns the todo's id, done and new version (with it as the ETag), or 404 if the todo is not the caller's.
+     * Honours If-Match like PUT, with 412 on a version mismatch.
      */
     @PatchMapping("/{id}/done")
-    public Todo markDone(@PathVariable Long id) {
-        return todoService.setDone(id, true);
+    public ResponseEntity<Todo> markDone(@PathVariable Long id,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Todo updated = todoService.setDone(id, true, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(IfMatch.etag(updated.getVersion())).body(updated);
     }
 
     /**
-     * PATCH /api/todos/{id}/undone - Mark a todo as incomplete.
+     * PATCH /api/todos/{id}/undone - Mark a todo as incomplete. Returns the same as PATCH .../done.
      */
     @PatchMapping("/{id}/undone")
-    public Todo markUndone(@PathVariable Long id) {
-        return todoService.setDone(id, false);
+    public ResponseEntity<Todo> markUndone(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Todo updated = todoService.setDone(id, false, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(IfMatch.etag(updated.getVersion())).body(updated);
     }
 
     /**
      * DELETE /api/todos/{id} - Remove a todo.
+     * Returns the removed todo's id (and with If-Match the version it was deleted at), or 404 if the todo is
+     * not the caller's. Like the PATCHes above, honours If-Match with 412 on a version mismatch.
      */
     @DeleteMapping("/{id}")
-    public Todo delete(@PathVariable Long id) {
-        return todoService.deleteTodo(id);
+    public Todo delete(@PathVariable Long id,
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return todoService.deleteTodo(id, IfMatch.expectedVersion(ifMatch));
     }
 
+    /**
+     * Whitelisted sort, with id as tie-breaker so pages stay stable when the sort key repeats.
+     */
+    private static Sort sortOf(String sort) {
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if (!SORTABLE.contains(property)) {
+            return Sort.by("id");
+        }
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort primary = Sort.by(direction, property);
+        return property.equals("id") ? primary : primary.and(Sort.by("id"));
+    }
 }
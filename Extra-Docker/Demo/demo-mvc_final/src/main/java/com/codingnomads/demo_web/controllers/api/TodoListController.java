@@ -1,10 +1,14 @@
 package com.codingnomads.demo_web.controllers.api;
 
 import com.codingnomads.demo_web.models.TodoList;
+import com.codingnomads.demo_web.services.TodoDataVersionService;
 import com.codingnomads.demo_web.services.TodoListService;
 import com.codingnomads.demo_web.services.TodoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -12,17 +16,45 @@ import java.util.List;
 @RequestMapping("/api/lists")
 @RequiredArgsConstructor
 public class TodoListController {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final TodoListService todoListService;
     private final TodoService todoService;
+    private final TodoDataVersionService todoDataVersionService;
 
+    /**
+     * GET /api/lists - The caller's lists. Answers a matching If-None-Match with 304 without loading them.
+     */
     @GetMapping("")
-    public List<TodoList> index() {
+    public List<TodoList> index(WebRequest request) {
+        if (request.checkNotModified(todoDataVersionService.currentUserETag())) {
+            return null;
+        }
         return todoListService.getAllTodoLists();
     }
 
+    /**
+     * GET /api/lists?cursor=&size=20 - Keyset paging in id order; see {@link TodoController#scroll}.
+     */
+    @GetMapping(value = "", params = "cursor")
+    public CursorPage<TodoList> scroll(@RequestParam(defaultValue = "") String cursor,
+                                       @RequestParam(defaultValue = "20") int size,
+                                       WebRequest request) {
+        if (request.checkNotModified(todoDataVersionService.currentUserETag())) {
+            return null;
+        }
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+        List<TodoList> lists = todoListService.getTodoListsAfter(ContinuationToken.decode(cursor), limit + 1);
+        return CursorPage.of(lists, limit, TodoList::getId);
+    }
+
+    /**
+     * GET /api/lists/{id} - The ETag is the list's version, for If-Match on PUT and DELETE.
+     */
     @GetMapping("/{id}")
-    public TodoList show(@PathVariable Long id) {
-        return todoListService.getTodoListById(id);
+    public ResponseEntity<TodoList> show(@PathVariable Long id) {
+        TodoList list = todoListService.getTodoListById(id);
+        return ResponseEntity.ok().eTag(IfMatch.etag(list.getVersion())).body(list);
     }
 
     @PostMapping(value = "")
@@ -30,14 +62,20 @@ public class TodoListController {
         return todoListService.createTodoList(todoList);
     }
 
+    /**
+     * PUT /api/lists/{id} - Rename a list; with If-Match only if it is still at that version, otherwise 412.
+     */
     @PutMapping("/{id}")
-    public TodoList update(@PathVariable Long id, @RequestBody TodoList newTodoList) {
-        return todoListService.updateTodoList(id, newTodoList);
+    public ResponseEntity<TodoList> update(@PathVariable Long id, @RequestBody TodoList newTodoList,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TodoList updated = todoListService.updateTodoList(id, newTodoList, IfMatch.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(IfMatch.etag(updated.getVersion())).body(updated);
     }
 
     @DeleteMapping("/{id}")
-    public TodoList delete(@PathVariable Long id) {
-        return todoListService.deleteTodoList(id);
+    public TodoList delete(@PathVariable Long id,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return todoListService.deleteTodoList(id, IfMatch.expectedVersion(ifMatch));
     }
 
     @PostMapping("/{id}/todos/{taskId}")
@@ -0,0 +1,100 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.services.ApiTokenService;
+import com.codingnomads.demo_web.services.UserService;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+/**
+ * REST API for managing the current user's API (refresh) tokens.
+ * Every operation is scoped to the caller: ownership is part of each UPDATE/DELETE, so other users' tokens
+ * are never touched and simply count as "not found".
+ */
+@RestController
+@RequestMapping("/api/tokens")
+@RequiredArgsConstructor
+public class TokenController {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ApiTokenService apiTokenService;
+    private final UserService userService;
+
+    /**
+     * The token itself is never returned - only its digest is stored.
+     */
+    public record TokenView(@JsonSerialize(using = ToStringSerializer.class) Long id, String jti, Instant issuedAt, Instant expiresAt,
+                            boolean revoked, Instant revokedAt, Instant lastUsedAt, long useCount) {
+        static TokenView of(ApiToken t) {
+            return new TokenView(t.getId(), t.getJti(), t.getIssuedAt(), t.getExpiresAt(),
+                    t.isRevoked(), t.getRevokedAt(), t.getLastUsedAt(), t.getUseCount());
+        }
+    }
+
+    public record BulkResult(int affected) {
+    }
+
+    /**
+     * GET /api/tokens?page=0&size=20 - The caller's tokens, newest first.
+     */
+    @GetMapping("")
+    public PagedModel<TokenView> index(@RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "20") int size) {
+        UserPrincipal user = userService.getCurrentUser();
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(MAX_PAGE_SIZE, size)),
+                Sort.by(Sort.Direction.DESC, "issuedAt"));
+        return new PagedModel<>(apiTokenService.userTokens(user.id(), pageRequest).map(TokenView::of));
+    }
+
+    /**
+     * POST /api/tokens/{id}/revoke - 404 if the token does not exist, is not the caller's, or is no longer live.
+     */
+    @PostMapping("/{id}/revoke")
+    public ResponseEntity<BulkResult> revoke(@PathVariable Long id) {
+        int affected = apiTokenService.revokeOwned(userService.getCurrentUser().id(), id);
+        return affected == 0 ? ResponseEntity.notFound().build() : ResponseEntity.ok(new BulkResult(affected));
+    }
+
+    /**
+     * DELETE /api/tokens/{id} - Revokes a live token, deletes an expired one.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        int affected = apiTokenService.deleteOwned(userService.getCurrentUser().id(), id);
+        return affected == 0 ? ResponseEntity.notFound().build() : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * POST /api/tokens/revoke-all - Revokes every live token of the caller.
+     */
+    @PostMapping("/revoke-all")
+    public BulkResult revokeAll() {
+        return new BulkResult(apiTokenService.revokeAllForUser(userService.getCurrentUser().id()));
+    }
+
+    /**
+     * POST /api/tokens/revoke-before?before=2025-01-01T00:00:00Z - Revokes the caller's tokens issued before an instant.
+     */
+    @PostMapping("/revoke-before")
+    public BulkResult revokeBefore(@RequestParam("before") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant before) {
+        return new BulkResult(apiTokenService.revokeIssuedBefore(before, userService.getCurrentUser().id()));
+    }
+
+    /**
+     * DELETE /api/tokens/expired - Deletes the caller's expired tokens.
+     */
+    @DeleteMapping("/expired")
+    public BulkResult deleteExpired() {
+        return new BulkResult(apiTokenService.deleteExpiredForUser(userService.getCurrentUser().id()));
+    }
+}
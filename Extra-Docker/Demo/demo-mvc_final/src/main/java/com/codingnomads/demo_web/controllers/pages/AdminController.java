@@ -5,10 +5,15 @@ import com.codingnomads.demo_web.models.User;
 import com.codingnomads.demo_web.services.ApiTokenService;
 import com.codingnomads.demo_web.services.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Set;
 
@@ -61,4 +66,28 @@ public class AdminController {
         apiTokenService.delete(id);
         return "redirect:/admin";
     }
+
+    // Bulk token actions: one statement each, the affected count is shown on the admin page
+    @PostMapping("/users/{id}/tokens/revoke")
+    public String revokeUserTokens(@PathVariable Long id, RedirectAttributes ra) {
+        int count = apiTokenService.revokeAllForUser(id);
+        ra.addFlashAttribute("message", "Revoked " + count + " token(s) of user " + id);
+        return "redirect:/admin";
+    }
+
+    @PostMapping("/users/{id}/tokens/delete-expired")
+    public String deleteExpiredUserTokens(@PathVariable Long id, RedirectAttributes ra) {
+        int count = apiTokenService.deleteExpiredForUser(id);
+        ra.addFlashAttribute("message", "Deleted " + count + " expired token(s) of user " + id);
+        return "redirect:/admin";
+    }
+
+    @PostMapping("/tokens/revoke-before")
+    public String revokeTokensIssuedBefore(@RequestParam("before") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                           RedirectAttributes ra) {
+        Instant cutoff = before.atZone(ZoneId.systemDefault()).toInstant();
+        int count = apiTokenService.revokeIssuedBefore(cutoff, null);
+        ra.addFlashAttribute("message", "Revoked " + count + " token(s) issued before " + cutoff);
+        return "redirect:/admin";
+    }
 }
@@ -6,7 +6,7 @@ import com.codingnomads.demo_web.clients.dtos.WeatherResponse;
 import com.codingnomads.demo_web.logging.Logged;
 import com.codingnomads.demo_web.models.Todo;
 import com.codingnomads.demo_web.models.TodoList;
-import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.repositories.TodoListRepository;
 import com.codingnomads.demo_web.repositories.TodoRepository;
 import com.codingnomads.demo_web.repositories.UserRepository;
@@ -65,7 +65,7 @@ public class HomePageController {
             // Fault tolerant: no weather attributes set on error
         }
 
-        User current = userService.getCurrentUser();
+        UserPrincipal current = userService.getCurrentUser();
         if (current == null) {
             // Anonymous: show system statistics
             model.addAttribute("usersCount", userRepository.count());
@@ -2,6 +2,7 @@ package com.codingnomads.demo_web.controllers.pages;
 
 import com.codingnomads.demo_web.models.ApiToken;
 import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.services.ApiTokenService;
 import com.codingnomads.demo_web.services.UserService;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
 
@@ -23,9 +25,11 @@ public class ProfileController {
 
     @GetMapping("/profile")
     public String profile(Model model) {
-        User user = userService.getCurrentUser();
-        model.addAttribute("user", user);
-        if (user != null) {
+        UserPrincipal principal = userService.getCurrentUser();
+        if (principal != null) {
+            // The profile page shows roles and account flags, so this is the one place that loads the full entity
+            User user = userService.findById(principal.id());
+            model.addAttribute("user", user);
             List<ApiToken> tokens = apiTokenService.userTokens(user.getId());
             model.addAttribute("tokens", tokens);
         }
@@ -33,8 +37,9 @@ public class ProfileController {
     }
 
     @PostMapping("/profile/token")
-    public String generateToken(@RequestParam(value = "ttlHours", required = false) Integer ttlHours) {
-        User user = userService.getCurrentUser();
+    public String generateToken(@RequestParam(value = "ttlHours", required = false) Integer ttlHours,
+                                RedirectAttributes ra) {
+        UserPrincipal user = userService.getCurrentUser();
         if (user != null) {
             java.time.Duration ttl;
             if (ttlHours == null) {
@@ -43,22 +48,19 @@ public class ProfileController {
                 int hours = Math.max(1, Math.min(24, ttlHours));
                 ttl = java.time.Duration.ofHours(hours);
             }
-            apiTokenService.generate(user, ttl);
+            ApiToken token = apiTokenService.generate(user, ttl);
+            // Only the digest is stored, so this redirect is the one chance to show the raw JWT
+            ra.addFlashAttribute("newToken", token.getToken());
         }
         return "redirect:/profile";
     }
 
     @PostMapping("/profile/token/{id}/delete")
     public String deleteToken(@PathVariable("id") Long id) {
-        User user = userService.getCurrentUser();
+        UserPrincipal user = userService.getCurrentUser();
         if (user != null && id != null) {
-            // Ensure the token belongs to the current user before deleting
-            boolean ownsToken = apiTokenService.userTokens(user.getId())
-                    .stream()
-                    .anyMatch(t -> id.equals(t.getId()));
-            if (ownsToken) {
-                apiTokenService.delete(id);
-            }
+            // Ownership is part of the UPDATE/DELETE itself: someone else's token is simply not affected
+            apiTokenService.deleteOwned(user.id(), id);
         }
         return "redirect:/profile";
     }
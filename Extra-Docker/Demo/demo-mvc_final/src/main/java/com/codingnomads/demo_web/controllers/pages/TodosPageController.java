@@ -3,6 +3,8 @@ package com.codingnomads.demo_web.controllers.pages;
 import com.codingnomads.demo_web.logging.Logged;
 import com.codingnomads.demo_web.models.Todo;
 import com.codingnomads.demo_web.models.TodoList;
+import com.codingnomads.demo_web.models.TodoSearchHit;
+import com.codingnomads.demo_web.services.TodoSearchService;
 import com.codingnomads.demo_web.services.TodoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -22,55 +24,38 @@ import java.util.List;
 @Logged
 public class TodosPageController {
 
+    private static final int SEARCH_PAGE_SIZE = 50;
+
     private final TodoService todoService;
     private final com.codingnomads.demo_web.services.TodoListService todoListService;
+    private final TodoSearchService todoSearchService;
 
     /**
      * GET /todos - Displays the main todo page.
-     * It gathers all necessary data (todo lists, todos, unlisted todos) and adds them to the 'Model'
-     * so they can be accessed by the Thymeleaf template.
+     * All the data it shows (lists with their todos, unlisted todos) comes as one view model, added to the 'Model'
+     * so it can be accessed by the Thymeleaf template.
+     * With a search query 'q' the page shows the matching todos instead, best match first.
      */
     @GetMapping
     public String todosPage(@RequestParam(value = "filter", required = false, defaultValue = "all") String filter,
+                            @RequestParam(value = "q", required = false) String q,
+                            @RequestParam(value = "page", required = false, defaultValue = "0") int page,
                             Model model) {
+        if (q != null && !q.isBlank()) {
+            int pageNumber = Math.max(0, page);
+            List<TodoSearchHit> hits = todoSearchService.search(q, pageNumber * SEARCH_PAGE_SIZE, SEARCH_PAGE_SIZE + 1);
+            model.addAttribute("q", q);
+            model.addAttribute("results", hits.size() > SEARCH_PAGE_SIZE ? hits.subList(0, SEARCH_PAGE_SIZE) : hits);
+            model.addAttribute("nextPage", hits.size() > SEARCH_PAGE_SIZE ? pageNumber + 1 : null);
+            return "todos";
+        }
         Boolean done = switch (filter.toLowerCase()) {
             case "open", "undone" -> Boolean.FALSE;
             case "done" -> Boolean.TRUE;
             default -> null;
         };
         model.addAttribute("filter", filter.toLowerCase());
-        List<TodoList> lists = todoListService.getAllTodoLists();
-        model.addAttribute("todoLists", lists);
-
-        // Build a per-list map of filtered todos (by "done" if provided)
-        java.util.Map<Long, java.util.List<Todo>> listTodosByListId = new java.util.HashMap<>();
-        for (var list : lists) {
-            java.util.List<Todo> lt = list.getTodos() == null ? java.util.List.of() : list.getTodos();
-            if (done != null) {
-                lt = lt.stream().filter(t -> t != null && t.isDone() == done).toList();
-            }
-            listTodosByListId.put(list.getId(), lt);
-        }
-        model.addAttribute("listTodosByListId", listTodosByListId);
-
-        // Unlisted todos, apply same filter
-        List<Todo> unlisted = todoService.getTodosWithoutList();
-        if (done != null) {
-            unlisted = unlisted.stream().filter(t -> t != null && t.isDone() == done).toList();
-        }
-        model.addAttribute("unlistedTodos", unlisted);
-
-        // Map current list selection per todo for pre-selecting the dropdown
-        java.util.Map<Long, Long> todoListByTodoId = new java.util.HashMap<>();
-        for (var list : lists) {
-            if (list.getTodos() == null) continue;
-            for (var t : list.getTodos()) {
-                if (t != null && t.getId() != null) {
-                    todoListByTodoId.put(t.getId(), list.getId());
-                }
-            }
-        }
-        model.addAttribute("todoListByTodoId", todoListByTodoId);
+        model.addAttribute("view", todoService.getTodosView(done));
 
         // Returns the name of the template file: src/main/resources/templates/todos.html
         return "todos";
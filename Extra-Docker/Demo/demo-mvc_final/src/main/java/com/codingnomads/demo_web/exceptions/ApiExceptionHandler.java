@@ -0,0 +1,42 @@
+package com.codingnomads.demo_web.exceptions;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Conditional-write failures of the REST API, answered with 412 Precondition Failed.
+ * Limited to the API controllers, so that form posts from the web pages keep their usual error handling.
+ * Ordered before {@link GlobalExceptionHandler}, whose catch-all would otherwise take these exceptions.
+ */
+@RestControllerAdvice(basePackages = "com.codingnomads.demo_web.controllers.api")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiExceptionHandler {
+
+    /**
+     * An If-Match write against a version that is no longer current.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetail> handleException(VersionConflictException e) {
+        return preconditionFailed(e.getMessage());
+    }
+
+    /**
+     * Hibernate's own version check failed on flush (the row changed between load and save). Same as above.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetail> handleException(OptimisticLockingFailureException e) {
+        return preconditionFailed("resource was changed by someone else");
+    }
+
+    private static ResponseEntity<ProblemDetail> preconditionFailed(String detail) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED, detail);
+        pd.setTitle(HttpStatus.PRECONDITION_FAILED.getReasonPhrase());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(pd);
+    }
+}
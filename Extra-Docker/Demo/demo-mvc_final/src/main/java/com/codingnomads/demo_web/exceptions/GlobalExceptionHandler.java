@@ -1,6 +1,7 @@
 package com.codingnomads.demo_web.exceptions;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -41,4 +42,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
     }
 
+    /**
+     * A refresh token that failed validation. Answered like the 401s from the API security chain.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetail> handleException(InvalidTokenException e) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, e.getMessage());
+        pd.setTitle(HttpStatus.UNAUTHORIZED.getReasonPhrase());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(pd);
+    }
+
+    /**
+     * A batch request that is too large to apply. Returns a 400 status code.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetail> handleException(InvalidBatchException e) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        pd.setTitle(HttpStatus.BAD_REQUEST.getReasonPhrase());
+        return ResponseEntity.badRequest().body(pd);
+    }
+
+    /**
+     * A continuation token that was not issued by us. Returns a 400 status code.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetail> handleException(InvalidCursorException e) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        pd.setTitle(HttpStatus.BAD_REQUEST.getReasonPhrase());
+        return ResponseEntity.badRequest().body(pd);
+    }
+
 }
@@ -0,0 +1,7 @@
+package com.codingnomads.demo_web.exceptions;
+
+public class InvalidBatchException extends RuntimeException {
+    public InvalidBatchException(String message) {
+        super(message);
+    }
+}
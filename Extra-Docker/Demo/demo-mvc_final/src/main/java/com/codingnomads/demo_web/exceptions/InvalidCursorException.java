@@ -0,0 +1,7 @@
+package com.codingnomads.demo_web.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.codingnomads.demo_web.exceptions;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.codingnomads.demo_web.exceptions;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
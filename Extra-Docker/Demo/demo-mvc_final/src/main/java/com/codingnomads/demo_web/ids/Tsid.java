@@ -0,0 +1,100 @@
+package com.codingnomads.demo_web.ids;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-sorted 64-bit ids, Snowflake layout: 41 bits of milliseconds since 2020-01-01 (good until 2089),
+ * 10 bits of node id and a 12-bit counter. Ids are positive and increase per node, so new rows always
+ * land at the right edge of the primary key index, and they need no database round trip.
+ * <p>
+ * The node id comes from the {@code tsid.node} system property or the {@code TSID_NODE} environment variable
+ * (0-1023). Every instance that writes to the same database needs its own; without one it is taken from the low
+ * 10 bits of the instance's IPv4 address, which is unique for replicas on one /22 network (e.g. containers scaled
+ * on a Docker network), and failing that from a hash of the host name.
+ * <p>
+ * When a node hands out more than 4096 ids in one millisecond, or the clock moves backwards, the counter
+ * simply runs ahead of the clock: ids stay unique and increasing.
+ */
+@Slf4j
+public final class Tsid {
+
+    static final long EPOCH = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int COUNTER_BITS = 12;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private static final Tsid INSTANCE = new Tsid(nodeFromEnvironment(), Clock.systemUTC());
+
+    private final long node;
+    private final Clock clock;
+    // (millis since EPOCH << COUNTER_BITS) | counter of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    Tsid(int node, Clock clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("TSID node must be between 0 and " + MAX_NODE + " but was " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    /**
+     * The next id of this JVM.
+     */
+    public static long next() {
+        return INSTANCE.generate();
+    }
+
+    /**
+     * When the id was generated, to the millisecond.
+     */
+    public static Instant instantOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + COUNTER_BITS)) + EPOCH);
+    }
+
+    long generate() {
+        long now = (clock.millis() - EPOCH) << COUNTER_BITS;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            next = Math.max(now, prev + 1);
+        } while (!last.compareAndSet(prev, next));
+        long millis = next >>> COUNTER_BITS;
+        return (millis << (NODE_BITS + COUNTER_BITS)) | (node << COUNTER_BITS) | (next & COUNTER_MASK);
+    }
+
+    private static int nodeFromEnvironment() {
+        String configured = System.getProperty("tsid.node", System.getenv("TSID_NODE"));
+        if (configured != null && !configured.isBlank()) {
+            return Integer.parseInt(configured.trim());
+        }
+        int node;
+        try {
+            InetAddress local = InetAddress.getLocalHost();
+            node = local instanceof Inet4Address && !local.isLoopbackAddress()
+                    ? nodeFromAddress(local.getAddress())
+                    : local.getHostName().hashCode() & MAX_NODE;
+        } catch (UnknownHostException e) {
+            node = new SecureRandom().nextInt(MAX_NODE + 1);
+        }
+        log.info("No TSID_NODE configured, using node id {}", node);
+        return node;
+    }
+
+    /**
+     * The low 10 bits of an IPv4 address.
+     */
+    static int nodeFromAddress(byte[] ipv4) {
+        return ((ipv4[2] & 0x03) << 8) | (ipv4[3] & 0xFF);
+    }
+}
@@ -1,5 +1,8 @@
 package com.codingnomads.demo_web.models;
 
+import com.codingnomads.demo_web.ids.TsidId;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,9 +10,12 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "api_tokens", indexes = {
-        @Index(name = "idx_api_token_token", columnList = "token", unique = true),
+        @Index(name = "idx_api_token_hash", columnList = "token_hash", unique = true),
+        // ApiTokenUsageTracker flushes by jti: access tokens carry their refresh token's jti, not its hash
+        @Index(name = "idx_api_token_jti", columnList = "jti", unique = true),
         @Index(name = "idx_api_token_user", columnList = "user_id"),
-        @Index(name = "idx_api_token_expires", columnList = "expires_at")
+        @Index(name = "idx_api_token_expires", columnList = "expires_at"),
+        @Index(name = "idx_api_token_revoked_at", columnList = "revoked_at")
 })
 @Getter
 @Setter
@@ -17,16 +23,27 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 public class ApiToken {
+    // Time-sorted id assigned before the INSERT (see Tsid), so inserts can be batched.
+    // Written to JSON as a string: TSIDs are beyond what a JavaScript number holds exactly.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TsidId
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @Column(nullable = false, unique = true, length = 1024)
-    private String token; // JWT string
+    // SHA-256 of the JWT: a compact 32-byte lookup key, and the bearer secret itself is never stored
+    @Column(name = "token_hash", nullable = false, length = 32)
+    private byte[] tokenHash;
+
+    @Column(name = "jti", nullable = false, length = 36)
+    private String jti; // JWT ID claim
+
+    // Raw JWT - only populated on the instance returned right after generation, never persisted
+    @Transient
+    private String token;
 
     @Column(name = "issued_at", nullable = false)
     private Instant issuedAt;
@@ -39,4 +56,11 @@ public class ApiToken {
 
     @Column(name = "revoked_at")
     private Instant revokedAt;
+
+    // Written in batches by ApiTokenUsageTracker, so they may lag behind by one flush interval
+    @Column(name = "last_used_at")
+    private Instant lastUsedAt;
+
+    @Column(name = "use_count", nullable = false)
+    private long useCount;
 }
@@ -1,6 +1,9 @@
 package com.codingnomads.demo_web.models;
 
+import com.codingnomads.demo_web.ids.TsidId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,16 +20,31 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        // Serves the per-user listings with and without the done filter
+        @Index(name = "idx_todos_user_done", columnList = "user_id, done"),
+        // Keyset paging seeks on (user_id, id); with the done filter InnoDB's implicit id suffix on the index above does the same
+        @Index(name = "idx_todos_user_id", columnList = "user_id, id")
+})
 public class Todo {
+    // Time-sorted id assigned before the INSERT (see Tsid), so inserts can be batched.
+    // Written to JSON as a string: TSIDs are beyond what a JavaScript number holds exactly.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TsidId
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     private String text;
 
     private boolean done;
 
+    /**
+     * Bumped on every write; sent as the item's ETag so clients can make their writes conditional (If-Match).
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Many todos can belong to one user.
      * @JsonIgnore prevents the user data from being included in API responses to avoid infinite recursion.
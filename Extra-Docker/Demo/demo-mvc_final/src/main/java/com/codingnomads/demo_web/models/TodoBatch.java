@@ -0,0 +1,37 @@
+package com.codingnomads.demo_web.models;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.util.List;
+
+/**
+ * Several todo writes applied together: creates first, then updates, then deletes.
+ *
+ * @param create todos to insert (text, done)
+ * @param update todos to overwrite, identified by id (text, done)
+ * @param delete ids of todos to remove
+ */
+public record TodoBatch(List<Todo> create, List<Todo> update, List<Long> delete) {
+
+    public TodoBatch {
+        create = create == null ? List.of() : create;
+        update = update == null ? List.of() : update;
+        delete = delete == null ? List.of() : delete;
+    }
+
+    public int size() {
+        return create.size() + update.size() + delete.size();
+    }
+
+    /**
+     * Outcome of one item.
+     *
+     * @param op     "create", "update" or "delete"
+     * @param index  position of the item in its array of the request
+     * @param id     id of the todo, null if an update had none
+     * @param status HTTP-style status: 201 created, 200 updated, 204 deleted, 404 not found (or not the caller's), 400 invalid
+     */
+    public record Result(String op, int index, @JsonSerialize(using = ToStringSerializer.class) Long id, int status) {
+    }
+}
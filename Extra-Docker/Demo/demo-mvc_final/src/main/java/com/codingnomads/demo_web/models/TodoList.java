@@ -1,6 +1,9 @@
 package com.codingnomads.demo_web.models;
 
+import com.codingnomads.demo_web.ids.TsidId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,14 +17,27 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "todo_lists")
+@Table(name = "todo_lists", indexes = {
+        // Keyset paging seeks on (user_id, id)
+        @Index(name = "idx_todo_lists_user_id", columnList = "user_id, id")
+})
 public class TodoList {
+    // Time-sorted id assigned before the INSERT (see Tsid), so inserts can be batched.
+    // Written to JSON as a string: TSIDs are beyond what a JavaScript number holds exactly.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TsidId
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     private String name;
 
+    /**
+     * Bumped on every write; sent as the item's ETag so clients can make their writes conditional (If-Match).
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany
     @JoinColumn(name = "todo_list_id")
     private List<Todo> todos;
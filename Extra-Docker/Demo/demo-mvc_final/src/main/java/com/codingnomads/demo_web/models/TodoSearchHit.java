@@ -0,0 +1,16 @@
+package com.codingnomads.demo_web.models;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * A todo that matched a search.
+ *
+ * @param score relevance, higher is better; only comparable within one search
+ */
+public record TodoSearchHit(@JsonSerialize(using = ToStringSerializer.class) Long id,
+                            String text,
+                            boolean done,
+                            @JsonSerialize(using = ToStringSerializer.class) Long listId,
+                            double score) {
+}
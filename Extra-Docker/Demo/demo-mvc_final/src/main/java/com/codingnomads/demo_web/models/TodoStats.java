@@ -0,0 +1,16 @@
+package com.codingnomads.demo_web.models;
+
+import java.util.Map;
+
+/**
+ * Todo counts of one user.
+ *
+ * @param perList  number of todos in each of the user's lists that has any, keyed by list id
+ * @param unlisted number of todos not in any list
+ */
+public record TodoStats(long total, long done, long open, Map<Long, Long> perList, long unlisted) {
+
+    public TodoStats {
+        perList = Map.copyOf(perList);
+    }
+}
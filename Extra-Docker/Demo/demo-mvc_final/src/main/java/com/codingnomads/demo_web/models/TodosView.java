@@ -0,0 +1,30 @@
+package com.codingnomads.demo_web.models;
+
+import java.util.List;
+
+/**
+ * Everything the /todos page shows, built from two flat queries (lists, then todos) instead of walking
+ * {@link TodoList#getTodos()} collections.
+ *
+ * @param lists    the user's lists in id order, each with its todos
+ * @param unlisted todos not in any list
+ */
+public record TodosView(List<ListSection> lists, List<Item> unlisted) {
+
+    public TodosView {
+        lists = List.copyOf(lists);
+        unlisted = List.copyOf(unlisted);
+    }
+
+    public record ListSection(Long id, String name, List<Item> todos) {
+        public ListSection {
+            todos = List.copyOf(todos);
+        }
+    }
+
+    /**
+     * @param listId the list the todo is in, null if none
+     */
+    public record Item(Long id, String text, boolean done, Long listId) {
+    }
+}
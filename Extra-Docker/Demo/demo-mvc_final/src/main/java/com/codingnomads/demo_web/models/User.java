@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -38,6 +39,18 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean credentialsExpired;
 
+    /**
+     * Signed login cookies issued at or before this instant are rejected (see SessionWatermarkService).
+     */
+    private Instant sessionsValidAfter;
+
+    /**
+     * Bumped on every change to the user's todos or lists (see TodoDataVersionService). Only ever written by that
+     * UPDATE, so saving a loaded User cannot move it back.
+     */
+    @Column(nullable = false, updatable = false)
+    private long dataVersion;
+
     @Builder.Default
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_roles",
@@ -0,0 +1,67 @@
+package com.codingnomads.demo_web.models;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of an authenticated user: just what a request needs to authorize and scope its queries.
+ * <p>
+ * Unlike the {@link User} entity it holds no password and no JPA state, so it can be cached and shared
+ * between threads freely. Services that need to link an entity to the user use
+ * {@code UserService.getReference(id)} instead of loading the full entity.
+ */
+public record UserPrincipal(Long id,
+                            String username,
+                            boolean accountNonExpired,
+                            boolean accountNonLocked,
+                            boolean credentialsNonExpired,
+                            Set<String> authorities) implements UserDetails {
+
+    public UserPrincipal {
+        authorities = Set.copyOf(authorities);
+    }
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(),
+                user.getUsername(),
+                user.isAccountNonExpired(),
+                user.isAccountNonLocked(),
+                user.isCredentialsNonExpired(),
+                user.getRoles().stream().map(Role::getAuthority).collect(Collectors.toSet()));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities.stream().map(SimpleGrantedAuthority::new).toList();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return accountNonExpired;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return accountNonLocked;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return credentialsNonExpired;
+    }
+}
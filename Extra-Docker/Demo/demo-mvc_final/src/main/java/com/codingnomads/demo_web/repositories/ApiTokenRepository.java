@@ -1,14 +1,80 @@
 package com.codingnomads.demo_web.repositories;
 
 import com.codingnomads.demo_web.models.ApiToken;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 public interface ApiTokenRepository extends JpaRepository<ApiToken, Long> {
-    Optional<ApiToken> findByToken(String token);
+    Optional<ApiToken> findByTokenHash(byte[] tokenHash);
     List<ApiToken> findAllByUser_Id(Long userId);
     List<ApiToken> findAllByRevokedFalseAndExpiresAtAfter(Instant now);
+
+    // Projections for the in-memory revocation index: only the two columns it needs
+    List<RevokedToken> findByRevokedTrueAndExpiresAtAfter(Instant now);
+
+    List<RevokedToken> findByRevokedTrueAndRevokedAtAfterAndExpiresAtAfter(Instant since, Instant now);
+
+    // Purge job: walk idx_api_token_expires in small chunks instead of one unbounded DELETE
+    @Query("SELECT t.id FROM ApiToken t WHERE t.expiresAt < :cutoff ORDER BY t.expiresAt")
+    List<Long> findIdsExpiredBefore(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ApiToken t WHERE t.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+
+    // Token management: single statements with ownership in the WHERE clause, returning affected rows.
+    // Only live tokens are revoked - an expired one is already rejected by its signature check.
+    @Modifying
+    @Transactional
+    @Query("UPDATE ApiToken t SET t.revoked = true, t.revokedAt = :now WHERE t.id = :id AND t.revoked = false AND t.expiresAt > :now")
+    int revokeById(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ApiToken t SET t.revoked = true, t.revokedAt = :now WHERE t.id = :id AND t.user.id = :userId AND t.revoked = false AND t.expiresAt > :now")
+    int revokeByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ApiToken t SET t.revoked = true, t.revokedAt = :now WHERE t.user.id = :userId AND t.revoked = false AND t.expiresAt > :now")
+    int revokeAllByUserId(@Param("userId") Long userId, @Param("now") Instant now);
+
+    // userId == null revokes across all users (admin)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ApiToken t SET t.revoked = true, t.revokedAt = :now WHERE t.issuedAt < :before AND (:userId IS NULL OR t.user.id = :userId) AND t.revoked = false AND t.expiresAt > :now")
+    int revokeAllIssuedBefore(@Param("before") Instant before, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ApiToken t WHERE t.id = :id AND t.expiresAt <= :now")
+    int deleteExpiredById(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ApiToken t WHERE t.id = :id AND t.user.id = :userId AND t.expiresAt <= :now")
+    int deleteExpiredByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ApiToken t WHERE t.user.id = :userId AND t.expiresAt <= :now")
+    int deleteAllExpiredByUserId(@Param("userId") Long userId, @Param("now") Instant now);
+
+    Page<ApiToken> findAllByUser_Id(Long userId, Pageable pageable);
+
+    interface RevokedToken {
+        String getJti();
+
+        Instant getExpiresAt();
+    }
 }
@@ -1,16 +1,38 @@
 package com.codingnomads.demo_web.repositories;
 
 import com.codingnomads.demo_web.models.TodoList;
-import com.codingnomads.demo_web.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TodoListRepository extends JpaRepository<TodoList, Long> {
-    List<TodoList> findAllByUser(User user);
+    List<TodoList> findAllByUser_Id(Long userId);
+
+    // Keyset paging: seeks past the last id the client saw
+    List<TodoList> findAllByUser_IdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Limit limit);
+
+    interface Summary {
+        Long getId();
+
+        String getName();
+    }
+
+    // Id and name only - leaves the todos collection alone
+    List<Summary> findSummariesByUser_IdOrderByIdAsc(Long userId);
 
     Optional<TodoList> findByIdAndUser_Id(Long id, Long userId);
+
+    // Conditional delete for If-Match; 0 affected rows means the list moved on
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TodoList l WHERE l.id = :id AND l.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
@@ -1,7 +1,9 @@
 package com.codingnomads.demo_web.repositories;
 
 import com.codingnomads.demo_web.models.Todo;
-import com.codingnomads.demo_web.models.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,9 +23,56 @@ import java.util.Optional;
 public interface TodoRepository extends JpaRepository<Todo, Long> {
     /**
      * Derived query method: Spring parses the method name to generate the SQL.
-     * It finds all todos where the 'user' matches the provided User object.
+     * It finds all todos whose 'user.id' matches - the user_id column, without joining users.
      */
-    List<Todo> findAllByUser(User user);
+    List<Todo> findAllByUser_Id(Long userId);
+
+    // Same, with the done filter applied in SQL
+    List<Todo> findAllByUser_IdAndDone(Long userId, boolean done);
+
+    // Paged variants; the Page carries the total from a COUNT query
+    Page<Todo> findAllByUser_Id(Long userId, Pageable pageable);
+
+    Page<Todo> findAllByUser_IdAndDone(Long userId, boolean done, Pageable pageable);
+
+    /**
+     * The columns the /todos page needs, including the list id that the entity does not map.
+     */
+    interface Row {
+        Long getId();
+
+        String getText();
+
+        Boolean getDone();
+
+        Long getListId();
+    }
+
+    @Query(value = "SELECT id, text, done, todo_list_id AS listId FROM todos WHERE user_id = :userId ORDER BY id", nativeQuery = true)
+    List<Row> findRowsByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT id, text, done, todo_list_id AS listId FROM todos WHERE user_id = :userId AND done = :done ORDER BY id", nativeQuery = true)
+    List<Row> findRowsByUserIdAndDone(@Param("userId") Long userId, @Param("done") boolean done);
+
+    /**
+     * One row per (list, done) combination the user has todos in; list id is null for unlisted todos.
+     */
+    interface CountByListAndDone {
+        Long getListId();
+
+        Boolean getDone();
+
+        Long getTodos();
+    }
+
+    @Query(value = "SELECT todo_list_id AS listId, done AS done, COUNT(*) AS todos FROM todos " +
+            "WHERE user_id = :userId GROUP BY todo_list_id, done", nativeQuery = true)
+    List<CountByListAndDone> countByListAndDone(@Param("userId") Long userId);
+
+    // Keyset paging: seeks past the last id the client saw, so a deep page costs the same as the first
+    List<Todo> findAllByUser_IdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Limit limit);
+
+    List<Todo> findAllByUser_IdAndDoneAndIdGreaterThanOrderByIdAsc(Long userId, boolean done, Long afterId, Limit limit);
 
     // Entity Todo doesn't have a `todoList` property; use native query scoped by user
     @Query(value = "SELECT * FROM todos WHERE user_id = :userId AND todo_list_id IS NULL", nativeQuery = true)
@@ -34,14 +83,68 @@ public interface TodoRepository extends JpaRepository<Todo, Long> {
     // Assign or unassign a todo to a list (ownership enforced via user_id)
     @Modifying
     @Transactional
-    @Query(value = "UPDATE todos SET todo_list_id = :listId WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
+    @Query(value = "UPDATE todos SET todo_list_id = :listId, version = version + 1 WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
     int assignToList(@Param("todoId") Long todoId, @Param("listId") Long listId, @Param("userId") Long userId);
 
     @Modifying
     @Transactional
-    @Query(value = "UPDATE todos SET todo_list_id = NULL WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
+    @Query(value = "UPDATE todos SET todo_list_id = NULL, version = version + 1 WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
     int unassignFromList(@Param("todoId") Long todoId, @Param("userId") Long userId);
 
+    // Single-statement mutations (ownership enforced via user_id); 0 affected rows means not found.
+    // They bump the @Version column themselves; the *IfVersion variants only apply at the expected version.
+    // The unconditional ones also hand the new version to LAST_INSERT_ID, see lastWrittenVersion().
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE todos SET text = :text, done = :done, version = LAST_INSERT_ID(version + 1) " +
+            "WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
+    int updateTextAndDone(@Param("todoId") Long todoId, @Param("userId") Long userId,
+                          @Param("text") String text, @Param("done") boolean done);
+
+    /**
+     * The version the last unconditional write on this connection set. LAST_INSERT_ID is per connection, so
+     * called in the write's transaction it is that write's version, whatever other sessions did since.
+     */
+    @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+    long lastWrittenVersion();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE todos SET text = :text, done = :done, version = version + 1 " +
+            "WHERE id = :todoId AND user_id = :userId AND version = :version", nativeQuery = true)
+    int updateTextAndDoneIfVersion(@Param("todoId") Long todoId, @Param("userId") Long userId,
+                                   @Param("text") String text, @Param("done") boolean done, @Param("version") Long version);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE todos SET done = :done, version = LAST_INSERT_ID(version + 1) " +
+            "WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
+    int setDone(@Param("todoId") Long todoId, @Param("userId") Long userId, @Param("done") boolean done);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE todos SET done = :done, version = version + 1 " +
+            "WHERE id = :todoId AND user_id = :userId AND version = :version", nativeQuery = true)
+    int setDoneIfVersion(@Param("todoId") Long todoId, @Param("userId") Long userId,
+                         @Param("done") boolean done, @Param("version") Long version);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE todos SET done = NOT done, version = version + 1 WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
+    int toggleDone(@Param("todoId") Long todoId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM todos WHERE id = :todoId AND user_id = :userId", nativeQuery = true)
+    int deleteOwned(@Param("todoId") Long todoId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM todos WHERE id = :todoId AND user_id = :userId AND version = :version", nativeQuery = true)
+    int deleteOwnedIfVersion(@Param("todoId") Long todoId, @Param("userId") Long userId, @Param("version") Long version);
+
+    boolean existsByIdAndUser_Id(Long id, Long userId);
+
     // Count todos by list for current user (used to block list deletion)
     @Query(value = "SELECT COUNT(*) FROM todos WHERE user_id = :userId AND todo_list_id = :listId", nativeQuery = true)
     long countByUserIdAndListId(@Param("userId") Long userId, @Param("listId") Long listId);
@@ -2,9 +2,30 @@ package com.codingnomads.demo_web.repositories;
 
 import com.codingnomads.demo_web.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    @Query("select u.sessionsValidAfter from User u where u.id = :id")
+    Optional<Instant> findSessionsValidAfterById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.sessionsValidAfter = :validAfter where u.id = :id")
+    int updateSessionsValidAfter(@Param("id") Long id, @Param("validAfter") Instant validAfter);
+
+    @Query("select u.dataVersion from User u where u.id = :id")
+    Optional<Long> findDataVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.dataVersion = u.dataVersion + 1 where u.id = :id")
+    int incrementDataVersion(@Param("id") Long id);
 }
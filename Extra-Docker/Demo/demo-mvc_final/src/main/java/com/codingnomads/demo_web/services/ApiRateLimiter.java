@@ -0,0 +1,214 @@
+package com.codingnomads.demo_web.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiting for the REST API, keyed by API token and by user, and for the unauthenticated
+ * {@code /api/auth/refresh} endpoint by client address.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} updated with compare-and-set (the "generic cell rate algorithm"
+ * formulation of a token bucket): it stores the time at which the bucket will be full again.
+ * No locks are taken on the request path; buckets live in a {@link ConcurrentHashMap} and idle ones are swept.
+ * <p>
+ * Limits are written as {@code capacity/period}, e.g. {@code 120/PT1M} = bursts of up to 120 requests,
+ * refilled evenly over one minute. A user gets the most generous limit of all their roles.
+ */
+@Component
+@Slf4j
+public class ApiRateLimiter {
+
+    public record Limit(long capacity, Duration period) {
+        public static Limit parse(String spec) {
+            int sep = spec.indexOf('/');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Expected 'capacity/period' but got: " + spec);
+            }
+            long capacity = Long.parseLong(spec.substring(0, sep).trim());
+            Duration period = Duration.parse(spec.substring(sep + 1).trim());
+            if (capacity <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit must be positive: " + spec);
+            }
+            return new Limit(capacity, period);
+        }
+
+        long intervalNanos() {
+            return Math.max(1L, period.toNanos() / capacity);
+        }
+    }
+
+    /**
+     * Outcome of one check. {@code resetSeconds} is when the bucket is full again;
+     * {@code retryAfterSeconds} is only meaningful when the request was rejected.
+     */
+    public record Decision(boolean allowed, Limit limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    private static final class Bucket {
+        // Theoretical arrival time: the instant (nanos) at which the bucket is completely refilled
+        final AtomicLong fullAt;
+
+        Bucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+    }
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Limit tokenLimit;
+    private final Limit refreshLimit;
+    private final Limit defaultUserLimit;
+    private final Map<String, Limit> roleLimits;
+    private final LongSupplier clock;
+    private final Counter rejected;
+
+    @Autowired
+    public ApiRateLimiter(MeterRegistry meterRegistry,
+                          @Value("${api.rate-limit.enabled:true}") boolean enabled,
+                          @Value("${api.rate-limit.token:60/PT1M}") String tokenLimit,
+                          @Value("${api.rate-limit.refresh:30/PT1M}") String refreshLimit,
+                          @Value("${api.rate-limit.default:60/PT1M}") String defaultUserLimit,
+                          @Value("${api.rate-limit.roles:}") String roleLimits) {
+        this(meterRegistry, enabled, Limit.parse(tokenLimit), Limit.parse(refreshLimit), Limit.parse(defaultUserLimit),
+                parseRoles(roleLimits), System::nanoTime);
+    }
+
+    ApiRateLimiter(MeterRegistry meterRegistry, boolean enabled, Limit tokenLimit, Limit refreshLimit, Limit defaultUserLimit,
+                   Map<String, Limit> roleLimits, LongSupplier clock) {
+        this.enabled = enabled;
+        this.tokenLimit = tokenLimit;
+        this.refreshLimit = refreshLimit;
+        this.defaultUserLimit = defaultUserLimit;
+        this.roleLimits = Map.copyOf(roleLimits);
+        this.clock = clock;
+        this.rejected = Counter.builder("api.rate-limit.rejected")
+                .description("API requests rejected with 429")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parses {@code "ROLE_USER:120/PT1M,ROLE_ADMIN:600/PT1M"}.
+     */
+    static Map<String, Limit> parseRoles(String spec) {
+        Map<String, Limit> result = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return result;
+        }
+        for (String pair : spec.split(",")) {
+            int sep = pair.indexOf(':');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Expected 'ROLE:capacity/period' but got: " + pair.trim());
+            }
+            result.put(pair.substring(0, sep).trim(), Limit.parse(pair.substring(sep + 1)));
+        }
+        return result;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Limit userLimit(Collection<String> authorities) {
+        Limit best = null;
+        for (String authority : authorities) {
+            Limit limit = roleLimits.get(authority);
+            if (limit != null && (best == null || limit.intervalNanos() < best.intervalNanos())) {
+                best = limit;
+            }
+        }
+        return best == null ? defaultUserLimit : best;
+    }
+
+    /**
+     * Takes one request from the token's and the user's bucket. The stricter of the two answers wins.
+     * A request rejected by the user bucket does not consume from the token bucket and vice versa: the token
+     * bucket is checked first (so a rejected token never touches the user bucket), and the request it let
+     * through is handed back if the user bucket then says no.
+     */
+    public Decision tryAcquire(String tokenId, Long userId, Collection<String> authorities) {
+        String tokenKey = "t:" + tokenId;
+        Decision byToken = tryAcquire(tokenKey, tokenLimit);
+        if (!byToken.allowed()) {
+            rejected.increment();
+            return byToken;
+        }
+        Decision byUser = tryAcquire("u:" + userId, userLimit(authorities));
+        if (!byUser.allowed()) {
+            release(tokenKey, tokenLimit);
+            rejected.increment();
+            return byUser;
+        }
+        return byUser.remaining() <= byToken.remaining() ? byUser : byToken;
+    }
+
+    /**
+     * Takes one request from the bucket of a client address calling {@code /api/auth/refresh}. That endpoint is
+     * reached before any authentication and looks the refresh token up in the database, so it is throttled per
+     * caller instead of per token.
+     */
+    public Decision tryAcquireRefresh(String clientAddress) {
+        Decision decision = tryAcquire("r:" + clientAddress, refreshLimit);
+        if (!decision.allowed()) {
+            rejected.increment();
+        }
+        return decision;
+    }
+
+    Decision tryAcquire(String key, Limit limit) {
+        long interval = limit.intervalNanos();
+        long burst = interval * limit.capacity();
+        long now = clock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(now));
+        while (true) {
+            long fullAt = bucket.fullAt.get();
+            long base = Math.max(fullAt, now);
+            long next = base + interval;
+            if (next - now > burst) {
+                long retryAfter = next - now - burst;
+                return new Decision(false, limit, 0, seconds(base - now), seconds(retryAfter));
+            }
+            if (bucket.fullAt.compareAndSet(fullAt, next)) {
+                long remaining = (burst - (next - now)) / interval;
+                return new Decision(true, limit, remaining, seconds(next - now), 0);
+            }
+        }
+    }
+
+    /**
+     * Gives back one request taken by {@link #tryAcquire(String, Limit)}.
+     */
+    void release(String key, Limit limit) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.fullAt.addAndGet(-limit.intervalNanos());
+        }
+    }
+
+    /**
+     * Buckets that are completely refilled hold no information - drop them to keep memory bounded by active clients.
+     */
+    @Scheduled(fixedDelayString = "${api.rate-limit.sweep-interval:PT1M}")
+    public void sweep() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.entrySet().removeIf(e -> e.getValue().fullAt.get() <= now);
+        log.debug("Rate limit buckets swept: {} -> {}", before, buckets.size());
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(0L, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,62 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Background job that removes API tokens which expired more than a grace period ago.
+ * <p>
+ * Revoked tokens are purged by the same rule: while a revoked token is unexpired its row is what
+ * the {@link TokenRevocationIndex} loads on startup, so it has to stay until the token expires.
+ * <p>
+ * Rows are deleted as a {@link ChunkedDelete} of {@code api.token-purge.chunk-size} ids taken from
+ * {@code idx_api_token_expires}.
+ */
+@Service
+@Slf4j
+public class ApiTokenPurgeService {
+
+    private final ApiTokenRepository apiTokenRepository;
+    private final Duration grace;
+    private final ChunkedDelete chunkedDelete;
+
+    public ApiTokenPurgeService(ApiTokenRepository apiTokenRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${api.token-purge.chunk-size:500}") int chunkSize,
+                                @Value("${api.token-purge.grace:P7D}") Duration grace,
+                                @Value("${api.token-purge.pause:PT0.1S}") Duration pause) {
+        this.apiTokenRepository = apiTokenRepository;
+        this.grace = grace;
+        this.chunkedDelete = new ChunkedDelete(meterRegistry, "api.token.purge",
+                "API token rows deleted by the purge job", chunkSize, pause);
+    }
+
+    @Scheduled(cron = "${api.token-purge.cron:0 */15 * * * *}")
+    public void purgeScheduled() {
+        purge(Instant.now().minus(grace));
+    }
+
+    /**
+     * Deletes every token that expired before {@code cutoff} and returns how many rows were removed.
+     */
+    public long purge(Instant cutoff) {
+        log.debug("Purging API tokens expired before {}", cutoff);
+        long total = chunkedDelete.run(limit -> {
+            List<Long> ids = apiTokenRepository.findIdsExpiredBefore(cutoff, PageRequest.ofSize(limit));
+            return new ChunkedDelete.Chunk(ids.size(), ids.isEmpty() ? 0 : apiTokenRepository.deleteAllByIdIn(ids));
+        });
+        if (total > 0) {
+            log.info("Purged {} expired API tokens", total);
+        }
+        return total;
+    }
+}
@@ -1,10 +1,17 @@
 package com.codingnomads.demo_web.services;
 
+import com.codingnomads.demo_web.exceptions.InvalidTokenException;
 import com.codingnomads.demo_web.models.ApiToken;
-import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -15,26 +22,33 @@ import java.util.List;
 @Slf4j
 public class ApiTokenService {
     private final ApiTokenRepository apiTokenRepository;
+    private final UserRepository userRepository;
     private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationIndex revocationIndex;
+    private final UserService userService;
+    private final ApiTokenUsageTracker usageTracker;
 
-    public ApiToken generate(User user) {
+    public ApiToken generate(UserPrincipal user) {
         return generate(user, java.time.Duration.ofHours(24));
     }
 
-    public ApiToken generate(User user, java.time.Duration ttl) {
-        log.info("Generating API token for user: {} with TTL: {}", user.getUsername(), ttl);
-        String jwt = jwtService.generateToken(user.getUsername(), ttl);
-        Instant now = Instant.now();
-        // Rely on JWT's embedded expiration (already clamped in JwtService)
-        Instant exp = jwtService.parseAndValidate(jwt).getExpiration().toInstant();
+    public ApiToken generate(UserPrincipal user, java.time.Duration ttl) {
+        log.info("Generating API token for user: {} with TTL: {}", user.username(), ttl);
+        // Expiration comes back from JwtService as issued (already clamped there), no need to parse the token again
+        JwtService.IssuedToken issued = jwtService.issue(user.username(), ttl);
+        String jwt = issued.token();
         ApiToken token = ApiToken.builder()
-                .user(user)
-                .token(jwt)
-                .issuedAt(now)
-                .expiresAt(exp)
+                .user(userRepository.getReferenceById(user.id()))
+                .tokenHash(TokenDigest.sha256(jwt))
+                .jti(issued.jti())
+                .issuedAt(issued.issuedAt())
+                .expiresAt(issued.expiresAt())
                 .revoked(false)
                 .build();
         ApiToken savedToken = apiTokenRepository.save(token);
+        // Hand the raw JWT back once so it can be shown to the user; only its digest is stored
+        savedToken.setToken(jwt);
         log.debug("API token generated and saved with ID: {}", savedToken.getId());
         return savedToken;
     }
@@ -49,26 +63,118 @@ public class ApiTokenService {
         return apiTokenRepository.findAll();
     }
 
-    public void revoke(Long tokenId) {
+    public Page<ApiToken> userTokens(Long userId, Pageable pageable) {
+        log.debug("Fetching API tokens for user ID: {}, page: {}", userId, pageable);
+        return apiTokenRepository.findAllByUser_Id(userId, pageable);
+    }
+
+    public int revoke(Long tokenId) {
         log.info("Revoking API token with ID: {}", tokenId);
-        ApiToken token = apiTokenRepository.findById(tokenId).orElseThrow();
-        token.setRevoked(true);
-        token.setRevokedAt(Instant.now());
-        apiTokenRepository.save(token);
-        log.info("API token with ID: {} revoked successfully", tokenId);
+        return revoked(apiTokenRepository.revokeById(tokenId, Instant.now()));
+    }
+
+    public int revokeOwned(Long userId, Long tokenId) {
+        log.info("Revoking API token with ID: {} of user ID: {}", tokenId, userId);
+        return revoked(apiTokenRepository.revokeByIdAndUserId(tokenId, userId, Instant.now()));
+    }
+
+    public int revokeAllForUser(Long userId) {
+        log.info("Revoking all API tokens of user ID: {}", userId);
+        int count = revoked(apiTokenRepository.revokeAllByUserId(userId, Instant.now()));
+        verifiedTokenCache.evictUser(userId);
+        return count;
+    }
+
+    /**
+     * Revokes every live token issued before {@code before}; {@code userId == null} means all users.
+     */
+    public int revokeIssuedBefore(Instant before, Long userId) {
+        log.info("Revoking API tokens issued before {} (user ID: {})", before, userId == null ? "all" : userId);
+        return revoked(apiTokenRepository.revokeAllIssuedBefore(before, userId, Instant.now()));
     }
 
-    public void delete(Long tokenId) {
+    public int deleteExpiredForUser(Long userId) {
+        int deleted = apiTokenRepository.deleteAllExpiredByUserId(userId, Instant.now());
+        log.info("Deleted {} expired API tokens of user ID: {}", deleted, userId);
+        return deleted;
+    }
+
+    /**
+     * Deleting a token that could still be used only revokes it: the revoked row is what tells the
+     * revocation index on every node to reject it. The row itself goes away once the token has expired.
+     * Returns the number of affected rows, 0 if there was nothing to do.
+     */
+    public int delete(Long tokenId) {
         log.info("Deleting API token with ID: {}", tokenId);
-        apiTokenRepository.deleteById(tokenId);
+        Instant now = Instant.now();
+        int revokedCount = revoked(apiTokenRepository.revokeById(tokenId, now));
+        return revokedCount > 0 ? revokedCount : apiTokenRepository.deleteExpiredById(tokenId, now);
+    }
+
+    /**
+     * Same as {@link #delete(Long)}, but only touches the token if it belongs to {@code userId}.
+     */
+    public int deleteOwned(Long userId, Long tokenId) {
+        log.info("Deleting API token with ID: {} of user ID: {}", tokenId, userId);
+        Instant now = Instant.now();
+        int revokedCount = revoked(apiTokenRepository.revokeByIdAndUserId(tokenId, userId, now));
+        return revokedCount > 0 ? revokedCount : apiTokenRepository.deleteExpiredByIdAndUserId(tokenId, userId, now);
+    }
+
+    /**
+     * Revocations are written with a single UPDATE, so we do not know the jtis here.
+     * Pulling the fresh revoked_at delta into the index makes them effective on this node right away;
+     * other nodes pick them up with their next poll.
+     */
+    private int revoked(int count) {
+        if (count > 0) {
+            revocationIndex.poll();
+            log.info("Revoked {} API tokens", count);
+        }
+        return count;
     }
 
     public boolean isActive(ApiToken token) {
         return !token.isRevoked() && token.getExpiresAt().isAfter(Instant.now());
     }
 
+    /**
+     * Exchanges a refresh token for a short-lived access token. This is the only API call that reads
+     * {@code api_tokens}: the row must exist and be active, and the account must still be usable.
+     */
+    public JwtService.IssuedToken refresh(String refreshJwt) {
+        Claims claims;
+        try {
+            claims = jwtService.parseAndValidate(refreshJwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        if (!JwtService.TYP_REFRESH.equals(claims.get("typ"))) {
+            throw new InvalidTokenException("Not a refresh token");
+        }
+
+        byte[] digest = TokenDigest.sha256(refreshJwt);
+        ApiToken stored = apiTokenRepository.findByTokenHash(digest)
+                .filter(this::isActive)
+                .orElseThrow(() -> new InvalidTokenException("Refresh token expired or revoked"));
+
+        UserPrincipal principal;
+        try {
+            principal = userService.loadPrincipal(claims.getSubject());
+        } catch (UsernameNotFoundException e) {
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        if (!principal.isAccountNonExpired() || !principal.isAccountNonLocked() || !principal.isCredentialsNonExpired()) {
+            log.info("Refusing to refresh token ID: {} for disabled user: {}", stored.getId(), principal.username());
+            throw new InvalidTokenException("Account is disabled");
+        }
+
+        usageTracker.record(stored.getJti());
+        return jwtService.issueAccessToken(principal, stored.getJti(), stored.getExpiresAt());
+    }
+
     public boolean isValidJwtAndActive(String jwt) {
-        return apiTokenRepository.findByToken(jwt)
+        return apiTokenRepository.findByTokenHash(TokenDigest.sha256(jwt))
                 .filter(this::isActive)
                 .isPresent();
     }
@@ -0,0 +1,86 @@
+package com.codingnomads.demo_web.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind "last used" tracking for API tokens.
+ * <p>
+ * The JWT filter only bumps an in-memory counter per token (lock-free: {@link LongAdder} + max-{@link AtomicLong}),
+ * keyed by the jti of the refresh token the request's access token was minted from, so every API call counts
+ * towards the token the user created. {@code /api/auth/refresh} counts as a use too.
+ * A scheduled flush writes everything collected since the previous flush to {@code api_tokens}
+ * as one JDBC batch of UPDATEs, keyed by the unique {@code jti}.
+ * <p>
+ * Counting is best effort: a use recorded in the instant an idle entry is dropped can be lost,
+ * and uses since the last flush are lost if the JVM dies. Good enough to spot unused or abused tokens.
+ */
+@Component
+@Slf4j
+public class ApiTokenUsageTracker {
+
+    private static final String FLUSH_SQL = """
+            UPDATE api_tokens
+               SET use_count = use_count + ?,
+                   last_used_at = GREATEST(COALESCE(last_used_at, ?), ?)
+             WHERE jti = ?""";
+
+    private static final class Usage {
+        final LongAdder count = new LongAdder();
+        final AtomicLong lastUsedMillis = new AtomicLong();
+        boolean idle; // only touched by the flushing thread
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+
+    public ApiTokenUsageTracker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Called on every authenticated API request - must stay cheap.
+     */
+    public void record(String jti) {
+        Usage usage = usages.computeIfAbsent(jti, k -> new Usage());
+        usage.count.increment();
+        long now = System.currentTimeMillis();
+        usage.lastUsedMillis.accumulateAndGet(now, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${api.token-usage.flush-interval:PT30S}")
+    @PreDestroy
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        usages.forEach((jti, usage) -> {
+            long count = usage.count.sumThenReset();
+            if (count == 0) {
+                // Drop entries after a full interval without use so the map only holds active tokens
+                if (usage.idle) {
+                    usages.remove(jti, usage);
+                }
+                usage.idle = true;
+                return;
+            }
+            usage.idle = false;
+            Timestamp lastUsed = new Timestamp(usage.lastUsedMillis.get());
+            batch.add(new Object[]{count, lastUsed, lastUsed, jti});
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        log.debug("Flushed usage of {} API tokens", batch.size());
+    }
+}
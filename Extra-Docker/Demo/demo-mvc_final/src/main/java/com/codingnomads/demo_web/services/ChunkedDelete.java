@@ -0,0 +1,84 @@
+package com.codingnomads.demo_web.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Deletes rows in chunks of {@code chunkSize}, each chunk in its own short statement or transaction, with a pause
+ * in between. That keeps row locks short, and several nodes can run the same job at once: a chunk deleted by
+ * another node simply affects zero rows.
+ * <p>
+ * Publishes {@code <metricPrefix>.rows} (rows deleted), {@code <metricPrefix>.batch} (one chunk) and
+ * {@code <metricPrefix>.run} (a whole run, pauses included).
+ */
+public class ChunkedDelete {
+
+    /**
+     * One chunk: selects at most {@code limit} ids and deletes them.
+     */
+    @FunctionalInterface
+    public interface Step {
+        Chunk delete(int limit);
+    }
+
+    /**
+     * How many ids a chunk selected and how many rows it actually deleted.
+     */
+    public record Chunk(int selected, int deleted) {
+    }
+
+    private final int chunkSize;
+    private final Duration pause;
+    private final Counter rows;
+    private final Timer batchTimer;
+    private final Timer runTimer;
+
+    public ChunkedDelete(MeterRegistry meterRegistry, String metricPrefix, String rowsDescription,
+                         int chunkSize, Duration pause) {
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.rows = Counter.builder(metricPrefix + ".rows")
+                .description(rowsDescription)
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder(metricPrefix + ".batch")
+                .description("Latency of one chunk (select ids + delete)")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder(metricPrefix + ".run")
+                .description("Duration of a whole run, pauses included")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code step} until a chunk comes back short, and returns how many rows were deleted in total.
+     */
+    public long run(Step step) {
+        long start = System.nanoTime();
+        long total = 0;
+        while (true) {
+            long batchStart = System.nanoTime();
+            Chunk chunk = step.delete(chunkSize);
+            batchTimer.record(Duration.ofNanos(System.nanoTime() - batchStart));
+            rows.increment(chunk.deleted());
+            total += chunk.deleted();
+
+            if (chunk.selected() < chunkSize || !sleep(pause)) {
+                break;
+            }
+        }
+        runTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        return total;
+    }
+
+    private static boolean sleep(Duration pause) {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
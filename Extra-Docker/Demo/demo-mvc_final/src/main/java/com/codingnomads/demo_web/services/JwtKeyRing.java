@@ -0,0 +1,80 @@
+package com.codingnomads.demo_web.services;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of HMAC signing keys, addressed by key id ({@code kid} header).
+ * <p>
+ * New tokens are always signed with the active key. Retired keys are only used to verify tokens
+ * that were issued before a rotation, so secrets can be rotated without logging out every API client.
+ * Tokens without a {@code kid} header (issued before key ids existed) are verified with the active key.
+ */
+public final class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private final String activeKid;
+    private final SecretKey activeKey;
+    private final Map<String, SecretKey> keys;
+
+    public JwtKeyRing(String activeKid, String activeSecret, Map<String, String> retiredSecrets) {
+        Map<String, SecretKey> all = new LinkedHashMap<>();
+        retiredSecrets.forEach((kid, secret) -> all.put(kid, hmacKey(secret)));
+        // jjwt requires sufficient key length for HS256
+        this.activeKey = hmacKey(activeSecret);
+        this.activeKid = activeKid;
+        all.put(activeKid, activeKey);
+        this.keys = Map.copyOf(all);
+    }
+
+    /**
+     * Parses {@code "kid1:secret1,kid2:secret2"} into a map. Blank input yields an empty map.
+     */
+    public static Map<String, String> parseSecrets(String spec) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return result;
+        }
+        for (String pair : spec.split(",")) {
+            int sep = pair.indexOf(':');
+            if (sep <= 0 || sep == pair.length() - 1) {
+                throw new IllegalArgumentException("Expected 'kid:secret' but got: " + pair.trim());
+            }
+            result.put(pair.substring(0, sep).trim(), pair.substring(sep + 1).trim());
+        }
+        return result;
+    }
+
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public SecretKey activeKey() {
+        return activeKey;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            return activeKey;
+        }
+        SecretKey key = keys.get(kid);
+        if (key == null) {
+            // Surfaces as a JwtException, i.e. "Invalid token" for the API client
+            throw new InvalidKeyException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,32 +1,87 @@
 package com.codingnomads.demo_web.services;
 
+import com.codingnomads.demo_web.models.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.MalformedJwtException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
-import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Issues and verifies JWTs.
+ * <p>
+ * The {@link JwtParser} is immutable and thread-safe, so it is built once and shared by all requests.
+ * Signing keys come from a {@link JwtKeyRing}: tokens carry the {@code kid} of the key that signed them,
+ * which lets us rotate {@code jwt.secret} while tokens signed with a retired key stay valid until they expire.
+ * <p>
+ * There are two kinds of tokens. Refresh tokens ({@code typ=api}) are long-lived, stored in {@code api_tokens}
+ * and only accepted by {@code /api/auth/refresh}. Access tokens ({@code typ=access}) live minutes and carry
+ * everything needed to authorize a request (user id, username, roles), so verifying them needs no database.
+ */
 @Service
 @Slf4j
 public class JwtService {
 
-    private final SecretKey key;
+    /**
+     * Everything known about a token at the moment it is signed, so callers never have to parse it back.
+     */
+    public record IssuedToken(String token, String jti, Instant issuedAt, Instant expiresAt) {
+    }
+
+    public static final String TYP_REFRESH = "api";
+    public static final String TYP_ACCESS = "access";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    /**
+     * jti of the refresh token an access token was minted from; revoking the refresh token revokes it too.
+     */
+    public static final String CLAIM_REFRESH_ID = "rti";
+
+    private static final Duration MIN_ACCESS_TTL = Duration.ofMinutes(5);
+    private static final Duration MAX_ACCESS_TTL = Duration.ofMinutes(15);
+
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
     private final long defaultTtlHours;
+    private final Duration accessTtl;
     private static final long MAX_TTL_HOURS = 24L; // hard upper bound
 
+    @Autowired
     public JwtService(@Value("${jwt.secret:dev-secret-change-me-dev-secret-change-me}") String secret,
-                      @Value("${jwt.ttlHours:24}") long defaultTtlHours) {
-        log.debug("Initializing JwtService with default TTL: {} hours", defaultTtlHours);
-        // jjwt requires sufficient key length for HS256
-        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+                      @Value("${jwt.kid:k1}") String kid,
+                      @Value("${jwt.retired-secrets:}") String retiredSecrets,
+                      @Value("${jwt.ttlHours:24}") long defaultTtlHours,
+                      @Value("${jwt.access-ttl:PT10M}") Duration accessTtl) {
+        this(new JwtKeyRing(kid, secret, JwtKeyRing.parseSecrets(retiredSecrets)), defaultTtlHours, accessTtl);
+    }
+
+    public JwtService(JwtKeyRing keyRing, long defaultTtlHours) {
+        this(keyRing, defaultTtlHours, Duration.ofMinutes(10));
+    }
+
+    public JwtService(JwtKeyRing keyRing, long defaultTtlHours, Duration accessTtl) {
+        log.debug("Initializing JwtService with active key: {}, default TTL: {} hours, access TTL: {}", keyRing.activeKid(), defaultTtlHours, accessTtl);
+        if (accessTtl.compareTo(MIN_ACCESS_TTL) < 0 || accessTtl.compareTo(MAX_ACCESS_TTL) > 0) {
+            throw new IllegalArgumentException("jwt.access-ttl must be between " + MIN_ACCESS_TTL + " and " + MAX_ACCESS_TTL + " but was " + accessTtl);
+        }
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
         this.defaultTtlHours = defaultTtlHours;
+        this.accessTtl = accessTtl;
     }
 
     public String generateToken(String username) {
@@ -49,6 +104,14 @@ public class JwtService {
      * Generate a token with the provided TTL duration. Will be clamped to max 24h and min 1 minute.
      */
     public String generateToken(String username, java.time.Duration ttl) {
+        return issue(username, ttl).token();
+    }
+
+    /**
+     * Same as {@link #generateToken(String, java.time.Duration)}, but also returns the jti and timestamps
+     * that went into the token.
+     */
+    public IssuedToken issue(String username, java.time.Duration ttl) {
         log.debug("Generating token for user: {} with duration: {}", username, ttl);
         java.time.Duration effective = ttl == null ? java.time.Duration.ofHours(defaultTtlHours) : ttl;
         if (effective.isNegative() || effective.isZero()) {
@@ -58,27 +121,68 @@ public class JwtService {
         if (effective.compareTo(max) > 0) {
             effective = max;
         }
-        Instant now = Instant.now();
+        // JWT dates have second precision; truncate so the returned metadata matches the claims exactly
+        Instant now = Instant.now().truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
         Instant exp = now.plus(effective);
+        String jti = UUID.randomUUID().toString(); // makes every token unique, even when issued in the same second
         String token = Jwts.builder()
+                .header().keyId(keyRing.activeKid()).and()
+                .id(jti)
                 .subject(username)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(exp))
-                .claims(Map.of("typ", "api", "coding", "nomads"))
-                .signWith(key)
+                .claims(Map.of("typ", TYP_REFRESH, "coding", "nomads"))
+                .signWith(keyRing.activeKey())
                 .compact();
         log.info("Successfully generated JWT for user: {}", username);
-        return token;
+        return new IssuedToken(token, jti, now, exp);
+    }
+
+    /**
+     * Mints a short-lived access token for {@code principal}. It never outlives the refresh token it came from.
+     */
+    public IssuedToken issueAccessToken(UserPrincipal principal, String refreshJti, Instant refreshExpiresAt) {
+        Instant now = Instant.now().truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
+        Instant exp = now.plus(accessTtl);
+        if (exp.isAfter(refreshExpiresAt)) {
+            exp = refreshExpiresAt;
+        }
+        String jti = UUID.randomUUID().toString();
+        String token = Jwts.builder()
+                .header().keyId(keyRing.activeKid()).and()
+                .id(jti)
+                .subject(principal.username())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(exp))
+                .claim("typ", TYP_ACCESS)
+                .claim(CLAIM_USER_ID, principal.id())
+                .claim(CLAIM_ROLES, List.copyOf(principal.authorities()))
+                .claim(CLAIM_REFRESH_ID, refreshJti)
+                .signWith(keyRing.activeKey())
+                .compact();
+        log.debug("Issued access token for user: {} from refresh token: {}", principal.username(), refreshJti);
+        return new IssuedToken(token, jti, now, exp);
+    }
+
+    /**
+     * Rebuilds the principal from a validated access token's claims. Account flags are not carried:
+     * a disabled account simply cannot refresh, so its access tokens die within one access-token lifetime.
+     */
+    public UserPrincipal principalOf(Claims accessClaims) {
+        Long userId = accessClaims.get(CLAIM_USER_ID, Long.class);
+        List<?> roles = accessClaims.get(CLAIM_ROLES, List.class);
+        if (userId == null || roles == null) {
+            throw new MalformedJwtException("Access token is missing user claims");
+        }
+        Set<String> authorities = new HashSet<>();
+        roles.forEach(role -> authorities.add(String.valueOf(role)));
+        return new UserPrincipal(userId, accessClaims.getSubject(), true, true, true, authorities);
     }
 
     public Claims parseAndValidate(String jwt) {
         log.debug("Parsing and validating JWT");
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(jwt)
-                    .getPayload();
+            Claims claims = parser.parseSignedClaims(jwt).getPayload();
             log.debug("JWT validated successfully for subject: {}", claims.getSubject());
             return claims;
         } catch (Exception e) {
@@ -0,0 +1,36 @@
+package com.codingnomads.demo_web.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+
+/**
+ * Node-local Caffeine caches with their statistics published as {@code cache.*} metrics tagged {@code cache=<name>}.
+ * <p>
+ * Callers evict entries they change on this node; the TTL bounds how long a change made on another node stays unseen.
+ */
+public final class MeteredCaches {
+
+    private MeteredCaches() {
+    }
+
+    public static <K, V> Cache<K, V> build(String name, Duration ttl, long maxSize, MeterRegistry meterRegistry) {
+        return build(name, ttl, maxSize, meterRegistry, Ticker.systemTicker());
+    }
+
+    public static <K, V> Cache<K, V> build(String name, Duration ttl, long maxSize, MeterRegistry meterRegistry,
+                                           Ticker ticker) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return cache;
+    }
+}
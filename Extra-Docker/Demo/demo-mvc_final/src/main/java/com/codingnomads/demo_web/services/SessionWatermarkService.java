@@ -0,0 +1,55 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Per-user "sessions valid after" watermark ({@code users.sessions_valid_after}). Signed login cookies
+ * issued at or before it are rejected, which is how a user is logged out server-side when there is no
+ * session row to delete.
+ * <p>
+ * Watermarks are read through a {@link MeteredCaches} cache, so checking one costs no query per request.
+ */
+@Service
+@Slf4j
+public class SessionWatermarkService {
+
+    private final UserRepository userRepository;
+    private final Clock clock;
+    private final Cache<Long, Instant> cache;
+
+    public SessionWatermarkService(UserRepository userRepository,
+                                   MeterRegistry meterRegistry,
+                                   Clock clock,
+                                   @Value("${mvc.session-watermark.ttl:PT30S}") Duration ttl,
+                                   @Value("${mvc.session-watermark.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.clock = clock;
+        this.cache = MeteredCaches.build("sessionWatermarks", ttl, maxSize, meterRegistry);
+    }
+
+    /**
+     * Instant after which logins of this user must have happened to count; {@link Instant#EPOCH} if never set.
+     */
+    public Instant validAfter(Long userId) {
+        return cache.get(userId, id -> userRepository.findSessionsValidAfterById(id).orElse(Instant.EPOCH));
+    }
+
+    /**
+     * Invalidates every login of the user that happened up to now.
+     */
+    public void invalidateSessions(Long userId) {
+        Instant now = clock.instant();
+        userRepository.updateSessionsValidAfter(userId, now);
+        cache.put(userId, now);
+        log.info("Invalidated signed login cookies of user ID: {} issued before {}", userId, now);
+    }
+}
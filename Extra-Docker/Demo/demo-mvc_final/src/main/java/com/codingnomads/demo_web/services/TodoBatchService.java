@@ -0,0 +1,127 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.exceptions.InvalidBatchException;
+import com.codingnomads.demo_web.ids.Tsid;
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoBatch;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies many todo writes of the current user in one transaction, as JDBC batches: one batched INSERT,
+ * one batched UPDATE and one batched DELETE, whatever the number of items.
+ * <p>
+ * Ids are {@link Tsid}s generated here, so nothing has to be read back; with {@code rewriteBatchedStatements=true}
+ * (MySQL) the driver sends each batch as multi-row statements. Ownership is part of every UPDATE/DELETE, so
+ * other users' todos are never touched and simply come back as 404.
+ */
+@Service
+@Slf4j
+public class TodoBatchService {
+
+    private static final String INSERT_SQL = "INSERT INTO todos (id, text, done, user_id, version) VALUES (?, ?, ?, ?, 0)";
+    private static final String UPDATE_SQL = "UPDATE todos SET text = ?, done = ?, version = version + 1 WHERE id = ? AND user_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM todos WHERE id = ? AND user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+    private final TodoStatsService todoStatsService;
+    private final TodoDataVersionService todoDataVersionService;
+    private final int maxSize;
+
+    public TodoBatchService(JdbcTemplate jdbcTemplate,
+                            UserService userService,
+                            TodoStatsService todoStatsService,
+                            TodoDataVersionService todoDataVersionService,
+                            @Value("${todos.batch.max-size:1000}") int maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userService = userService;
+        this.todoStatsService = todoStatsService;
+        this.todoDataVersionService = todoDataVersionService;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return one result per item: creates, then updates, then deletes, each in request order
+     */
+    @Transactional
+    public List<TodoBatch.Result> apply(TodoBatch batch) {
+        if (batch.size() > maxSize) {
+            throw new InvalidBatchException("A batch may hold at most " + maxSize + " items");
+        }
+        UserPrincipal user = userService.getCurrentUser();
+        log.info("Applying todo batch for user: {} ({} creates, {} updates, {} deletes)",
+                user.username(), batch.create().size(), batch.update().size(), batch.delete().size());
+
+        List<TodoBatch.Result> results = new ArrayList<>(batch.size());
+        results.addAll(create(batch.create(), user.id()));
+        results.addAll(update(batch.update(), user.id()));
+        results.addAll(delete(batch.delete(), user.id()));
+        if (batch.size() > 0) {
+            todoStatsService.invalidate(user.id());
+            todoDataVersionService.bump(user.id());
+        }
+        return results;
+    }
+
+    private List<TodoBatch.Result> create(List<Todo> todos, Long userId) {
+        List<Object[]> args = new ArrayList<>(todos.size());
+        List<TodoBatch.Result> results = new ArrayList<>(todos.size());
+        for (int i = 0; i < todos.size(); i++) {
+            Todo todo = todos.get(i);
+            long id = Tsid.next();
+            args.add(new Object[]{id, todo.getText(), todo.isDone(), userId});
+            results.add(new TodoBatch.Result("create", i, id, 201));
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+        }
+        return results;
+    }
+
+    private List<TodoBatch.Result> update(List<Todo> todos, Long userId) {
+        List<Object[]> args = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            if (todo.getId() != null) {
+                args.add(new Object[]{todo.getText(), todo.isDone(), todo.getId(), userId});
+            }
+        }
+        int[] counts = args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+
+        List<TodoBatch.Result> results = new ArrayList<>(todos.size());
+        int next = 0;
+        for (int i = 0; i < todos.size(); i++) {
+            Long id = todos.get(i).getId();
+            int status = id == null ? 400 : found(counts[next++]) ? 200 : 404;
+            results.add(new TodoBatch.Result("update", i, id, status));
+        }
+        return results;
+    }
+
+    private List<TodoBatch.Result> delete(List<Long> ids, Long userId) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{id, userId});
+        }
+        int[] counts = args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(DELETE_SQL, args);
+
+        List<TodoBatch.Result> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            results.add(new TodoBatch.Result("delete", i, ids.get(i), found(counts[i]) ? 204 : 404));
+        }
+        return results;
+    }
+
+    // Drivers may answer a batched statement with SUCCESS_NO_INFO instead of a row count
+    private static boolean found(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+}
@@ -0,0 +1,54 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Per-user version of the todo and list data ({@code users.data_version}), bumped after every change.
+ * The API derives ETags from it, so an unchanged poll is answered with 304 without loading anything.
+ * <p>
+ * Versions are read through a {@link MeteredCaches} cache that a bump evicts.
+ */
+@Service
+public class TodoDataVersionService {
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final Cache<Long, Long> cache;
+
+    public TodoDataVersionService(UserRepository userRepository,
+                                  UserService userService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${todos.data-version.ttl:PT5S}") Duration ttl,
+                                  @Value("${todos.data-version.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.cache = MeteredCaches.build("todoDataVersions", ttl, maxSize, meterRegistry);
+    }
+
+    public long current(Long userId) {
+        return cache.get(userId, id -> userRepository.findDataVersionById(id).orElse(0L));
+    }
+
+    /**
+     * Strong ETag for any representation of the current user's todos or lists.
+     */
+    public String currentUserETag() {
+        Long userId = userService.getCurrentUser().id();
+        return "\"" + userId + "-" + current(userId) + "\"";
+    }
+
+    /**
+     * Call after the change has been written, so a version is never paired with older data.
+     * Inside a transaction the cached version is evicted once it has committed.
+     */
+    public void bump(Long userId) {
+        userRepository.incrementDataVersion(userId);
+        AfterCommit.run(() -> cache.invalidate(userId));
+    }
+}
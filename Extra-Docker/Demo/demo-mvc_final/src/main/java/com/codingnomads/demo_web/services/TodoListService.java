@@ -1,14 +1,17 @@
 package com.codingnomads.demo_web.services;
 
 import com.codingnomads.demo_web.exceptions.TodoListNotFoundException;
+import com.codingnomads.demo_web.exceptions.VersionConflictException;
 import com.codingnomads.demo_web.models.Todo;
 import com.codingnomads.demo_web.models.TodoList;
-import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.repositories.TodoListRepository;
 import com.codingnomads.demo_web.repositories.TodoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -20,63 +23,104 @@ public class TodoListService {
     private final TodoRepository todoRepository;
     private final TodoService todoService;
     private final UserService userService;
+    private final TodoDataVersionService todoDataVersionService;
 
     public List<TodoList> getAllTodoLists() {
-        User user = userService.getCurrentUser();
+        UserPrincipal user = userService.getCurrentUser();
         if (user == null) {
             log.error("Attempted to fetch all todo lists without authentication");
             throw new IllegalStateException("Unauthenticated");
         }
-        log.debug("Fetching all todo lists for user: {}", user.getUsername());
-        return todoListRepository.findAllByUser(user).stream().toList();
+        log.debug("Fetching all todo lists for user: {}", user.username());
+        return todoListRepository.findAllByUser_Id(user.id()).stream().toList();
+    }
+
+    /**
+     * Up to {@code limit} of the current user's lists with an id greater than {@code afterId}, in id order.
+     */
+    public List<TodoList> getTodoListsAfter(long afterId, int limit) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching {} todo lists after ID: {} for user: {}", limit, afterId, user.username());
+        return todoListRepository.findAllByUser_IdAndIdGreaterThanOrderByIdAsc(user.id(), afterId, Limit.of(limit));
     }
 
     public TodoList getTodoListById(Long id) {
-        User user = userService.getCurrentUser();
-        log.debug("Fetching todo list by ID: {} for user: {}", id, user.getUsername());
-        return todoListRepository.findByIdAndUser_Id(id, user.getId())
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching todo list by ID: {} for user: {}", id, user.username());
+        return todoListRepository.findByIdAndUser_Id(id, user.id())
                 .orElseThrow(() -> {
-                    log.error("Todo list with ID: {} not found for user: {}", id, user.getUsername());
+                    log.error("Todo list with ID: {} not found for user: {}", id, user.username());
                     return new TodoListNotFoundException("todo is not found");
                 });
     }
 
     public TodoList createTodoList(TodoList todoList) {
-        User user = userService.getCurrentUser();
+        UserPrincipal user = userService.getCurrentUser();
         if (user == null) {
             log.error("Attempted to create todo list without authentication");
             throw new IllegalStateException("Unauthenticated");
         }
-        log.info("Creating new todo list: {} for user: {}", todoList.getName(), user.getUsername());
-        todoList.setUser(user);
+        log.info("Creating new todo list: {} for user: {}", todoList.getName(), user.username());
+        todoList.setUser(userService.getReference(user.id()));
+        todoList.setVersion(null);
         TodoList savedList = todoListRepository.save(todoList);
+        todoDataVersionService.bump(user.id());
         log.info("Successfully created todo list with ID: {}", savedList.getId());
         return savedList;
     }
 
+    @Transactional
     public TodoList updateTodoList(Long id, TodoList newTodoList) {
+        return updateTodoList(id, newTodoList, null);
+    }
+
+    /**
+     * Load, check and save in one transaction. With an expected version the list must still be at it when loaded;
+     * a change that lands between the load and the commit fails Hibernate's own version check on the UPDATE.
+     */
+    @Transactional
+    public TodoList updateTodoList(Long id, TodoList newTodoList, Long expectedVersion) {
         log.info("Updating todo list ID: {}", id);
         TodoList currentTodo = getTodoListById(id);
+        requireVersion(currentTodo, expectedVersion);
         currentTodo.setName(newTodoList.getName());
 
         TodoList updatedList = todoListRepository.save(currentTodo);
+        todoDataVersionService.bump(userService.getCurrentUser().id());
         log.info("Successfully updated todo list ID: {}", id);
         return updatedList;
     }
 
     public TodoList deleteTodoList(Long id) {
-        User user = userService.getCurrentUser();
-        log.info("Attempting to delete todo list ID: {} for user: {}", id, user.getUsername());
+        return deleteTodoList(id, null);
+    }
+
+    public TodoList deleteTodoList(Long id, Long expectedVersion) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.info("Attempting to delete todo list ID: {} for user: {}", id, user.username());
         TodoList list = getTodoListById(id);
-        long count = todoRepository.countByUserIdAndListId(user.getId(), id);
+        requireVersion(list, expectedVersion);
+        long count = todoRepository.countByUserIdAndListId(user.id(), id);
         if (count > 0) {
             log.warn("Cannot delete todo list ID: {} because it contains {} todos", id, count);
             throw new IllegalStateException("Cannot delete a list that has todos");
         }
-        todoListRepository.deleteById(id);
+        if (expectedVersion == null) {
+            todoListRepository.deleteById(id);
+        } else if (todoListRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+            throw new VersionConflictException("todo list was changed by someone else");
+        }
+        todoDataVersionService.bump(user.id());
         log.info("Successfully deleted todo list ID: {}", id);
         return list;
     }
 
+    private static void requireVersion(TodoList list, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(list.getVersion())) {
+            log.info("Todo list ID: {} is at version {}, not {}", list.getId(), list.getVersion(), expectedVersion);
+            throw new VersionConflictException("todo list was changed by someone else");
+        }
+    }
+
     // Assignment of todos to lists is consolidated in TodoService.assignToList
 }
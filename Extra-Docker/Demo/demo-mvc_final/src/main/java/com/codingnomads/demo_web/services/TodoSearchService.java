@@ -0,0 +1,109 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.TodoSearchHit;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ranked search over the text of the current user's todos.
+ * <p>
+ * On MySQL with the FULLTEXT index {@code ft_todos_text} on {@code todos.text} in place, results are ordered by
+ * {@code MATCH ... AGAINST} relevance (natural language mode). Hibernate's schema update cannot declare that index;
+ * it comes from {@code db/mysql/todos_fulltext.sql} and is looked for once on startup. Without it (and on other
+ * databases, e.g. H2 in the tests) each query term is matched with LIKE and results are ranked by the number of
+ * terms found; that scans the user's todos and is only meant for small data sets.
+ */
+@Service
+@Slf4j
+@DependsOn("entityManagerFactory") // looks at the table Hibernate creates
+public class TodoSearchService {
+
+    static final String FULLTEXT_INDEX = "ft_todos_text";
+    private static final int MAX_TERMS = 8;
+
+    private static final String FULLTEXT_SQL = "SELECT id, text, done, todo_list_id, " +
+            "MATCH(text) AGAINST (? IN NATURAL LANGUAGE MODE) AS score " +
+            "FROM todos WHERE user_id = ? AND MATCH(text) AGAINST (? IN NATURAL LANGUAGE MODE) " +
+            "ORDER BY score DESC, id LIMIT ? OFFSET ?";
+
+    private static final RowMapper<TodoSearchHit> HIT = (rs, i) -> new TodoSearchHit(
+            rs.getLong("id"), rs.getString("text"), rs.getBoolean("done"),
+            rs.getObject("todo_list_id", Long.class), rs.getDouble("score"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+    private boolean fullText;
+
+    public TodoSearchService(JdbcTemplate jdbcTemplate, UserService userService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userService = userService;
+    }
+
+    @PostConstruct
+    void init() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(database)) {
+            log.info("Todo search on {} uses LIKE matching, not a full-text index", database);
+            return;
+        }
+        Integer present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'todos' AND index_name = ?", Integer.class, FULLTEXT_INDEX);
+        fullText = present != null && present > 0;
+        if (!fullText) {
+            log.warn("FULLTEXT index {} is missing, todo search falls back to LIKE matching; " +
+                    "apply db/mysql/todos_fulltext.sql and restart", FULLTEXT_INDEX);
+        }
+    }
+
+    /**
+     * Up to {@code limit} of the current user's todos matching {@code query}, best match first (ties by id),
+     * skipping the first {@code offset}.
+     */
+    public List<TodoSearchHit> search(String query, int offset, int limit) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Searching todos of user: {} for '{}' (offset {}, limit {})", user.username(), query, offset, limit);
+        if (fullText) {
+            return query.isBlank() ? List.of()
+                    : jdbcTemplate.query(FULLTEXT_SQL, HIT, query, user.id(), query, limit, offset);
+        }
+        List<String> terms = terms(query);
+        return terms.isEmpty() ? List.of() : searchLike(terms, user.id(), offset, limit);
+    }
+
+    private List<TodoSearchHit> searchLike(List<String> terms, Long userId, int offset, int limit) {
+        String hit = "CASE WHEN LOWER(text) LIKE ? THEN 1 ELSE 0 END";
+        String sql = "SELECT id, text, done, todo_list_id, " + String.join(" + ", Collections.nCopies(terms.size(), hit)) + " AS score " +
+                "FROM todos WHERE user_id = ? AND (" + String.join(" OR ", Collections.nCopies(terms.size(), "LOWER(text) LIKE ?")) + ") " +
+                "ORDER BY score DESC, id LIMIT ? OFFSET ?";
+        List<Object> args = new ArrayList<>();
+        terms.forEach(t -> args.add("%" + t + "%"));
+        args.add(userId);
+        terms.forEach(t -> args.add("%" + t + "%"));
+        args.add(limit);
+        args.add(offset);
+        return jdbcTemplate.query(sql, HIT, args.toArray());
+    }
+
+    /**
+     * Lower-cased words of the query (letters and digits only, so nothing needs escaping in LIKE), without duplicates.
+     */
+    static List<String> terms(String query) {
+        return Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(t -> !t.isEmpty())
+                .distinct()
+                .limit(MAX_TERMS)
+                .toList();
+    }
+}
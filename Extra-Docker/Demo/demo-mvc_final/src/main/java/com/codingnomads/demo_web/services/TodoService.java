@@ -1,15 +1,25 @@
 package com.codingnomads.demo_web.services;
 
 import com.codingnomads.demo_web.exceptions.TodoNotFoundException;
+import com.codingnomads.demo_web.exceptions.VersionConflictException;
 import com.codingnomads.demo_web.models.Todo;
-import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.TodoStats;
+import com.codingnomads.demo_web.models.TodosView;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.repositories.TodoListRepository;
 import com.codingnomads.demo_web.repositories.TodoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -24,63 +34,162 @@ public class TodoService {
     private final TodoRepository todoRepository;
     private final TodoListRepository todoListRepository;
     private final UserService userService;
+    private final TodoStatsService todoStatsService;
+    private final TodoDataVersionService todoDataVersionService;
 
     /**
      * Retrieves all todos for the currently logged-in user.
      * @param done optional filter to show only completed or incomplete todos.
      */
     public List<Todo> getAllTodos(Boolean done) {
-        User user = userService.getCurrentUser();
-        log.debug("Fetching all todos for user: {}, filter done: {}", user.getUsername(), done);
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching all todos for user: {}, filter done: {}", user.username(), done);
 
         if (Objects.isNull(done)) {
-            return todoRepository.findAllByUser(user);
+            return todoRepository.findAllByUser_Id(user.id());
         }
 
-        return todoRepository.findAllByUser(user).stream().filter(todo -> todo.isDone() == done).toList();
+        return todoRepository.findAllByUser_IdAndDone(user.id(), done);
+    }
+
+    /**
+     * One page of the current user's todos, optionally filtered by completion status.
+     */
+    public Page<Todo> getTodos(Boolean done, Pageable pageable) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching todos page {} for user: {}, filter done: {}", pageable, user.username(), done);
+
+        if (Objects.isNull(done)) {
+            return todoRepository.findAllByUser_Id(user.id(), pageable);
+        }
+
+        return todoRepository.findAllByUser_IdAndDone(user.id(), done, pageable);
+    }
+
+    /**
+     * Up to {@code limit} of the current user's todos with an id greater than {@code afterId}, in id order.
+     */
+    public List<Todo> getTodosAfter(Boolean done, long afterId, int limit) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching {} todos after ID: {} for user: {}, filter done: {}", limit, afterId, user.username(), done);
+
+        if (Objects.isNull(done)) {
+            return todoRepository.findAllByUser_IdAndIdGreaterThanOrderByIdAsc(user.id(), afterId, Limit.of(limit));
+        }
+
+        return todoRepository.findAllByUser_IdAndDoneAndIdGreaterThanOrderByIdAsc(user.id(), done, afterId, Limit.of(limit));
+    }
+
+    /**
+     * Totals, done/open split, per-list and unlisted counts of the current user's todos.
+     */
+    public TodoStats getStats() {
+        UserPrincipal user = userService.getCurrentUser();
+        return todoStatsService.stats(user.id());
     }
 
     public List<Todo> getTodosWithoutList() {
-        User user = userService.getCurrentUser();
-        log.debug("Fetching todos without list for user: {}", user.getUsername());
-        return todoRepository.findAllByUserIdAndNoList(user.getId());
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching todos without list for user: {}", user.username());
+        return todoRepository.findAllByUserIdAndNoList(user.id());
+    }
+
+    /**
+     * The /todos page of the current user in two queries: the lists, then all todos with their list id
+     * (filtered by done in SQL), grouped in one pass.
+     */
+    public TodosView getTodosView(Boolean done) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Building todos view for user: {}, filter done: {}", user.username(), done);
+
+        List<TodoListRepository.Summary> lists = todoListRepository.findSummariesByUser_IdOrderByIdAsc(user.id());
+        List<TodoRepository.Row> rows = Objects.isNull(done)
+                ? todoRepository.findRowsByUserId(user.id())
+                : todoRepository.findRowsByUserIdAndDone(user.id(), done);
+
+        Map<Long, List<TodosView.Item>> byList = new HashMap<>();
+        List<TodosView.Item> unlisted = new ArrayList<>();
+        for (TodoRepository.Row row : rows) {
+            TodosView.Item item = new TodosView.Item(row.getId(), row.getText(), Boolean.TRUE.equals(row.getDone()), row.getListId());
+            if (item.listId() == null) {
+                unlisted.add(item);
+            } else {
+                byList.computeIfAbsent(item.listId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        List<TodosView.ListSection> sections = lists.stream()
+                .map(l -> new TodosView.ListSection(l.getId(), l.getName(), byList.getOrDefault(l.getId(), List.of())))
+                .toList();
+        return new TodosView(sections, unlisted);
     }
 
     public Todo getTodoById(Long id) {
-        User user = userService.getCurrentUser();
-        log.debug("Fetching todo ID: {} for user: {}", id, user.getUsername());
-        return todoRepository.findByIdAndUser_Id(id, user.getId())
+        UserPrincipal user = userService.getCurrentUser();
+        log.debug("Fetching todo ID: {} for user: {}", id, user.username());
+        return todoRepository.findByIdAndUser_Id(id, user.id())
                 .orElseThrow(() -> {
-                    log.error("Todo ID: {} not found for user: {}", id, user.getUsername());
+                    log.error("Todo ID: {} not found for user: {}", id, user.username());
                     return new TodoNotFoundException("todo is not found");
                 });
     }
 
     public Todo createTodo(Todo todo) {
-        User user = userService.getCurrentUser();
-        log.info("Creating todo for user: {} with text: {}", user.getUsername(), todo.getText());
-        todo.setUser(user);
+        UserPrincipal user = userService.getCurrentUser();
+        log.info("Creating todo for user: {} with text: {}", user.username(), todo.getText());
+        todo.setUser(userService.getReference(user.id()));
+        todo.setVersion(null);
         Todo savedTodo = todoRepository.save(todo);
+        changed(user.id());
         log.info("Successfully created todo ID: {}", savedTodo.getId());
         return savedTodo;
     }
 
+    @Transactional
     public Todo updateTodo(Long id, Todo newTodo) {
-        log.info("Updating todo ID: {}", id);
-        Todo currentTodo = getTodoById(id);
-        currentTodo.setText(newTodo.getText());
-        currentTodo.setDone(newTodo.isDone());
+        return updateTodo(id, newTodo, null);
+    }
 
-        Todo updatedTodo = todoRepository.save(currentTodo);
+    /**
+     * Overwrites text and done in one UPDATE; the result is built from the arguments, not read back.
+     * With an expected version the UPDATE only applies if the todo is still at it, otherwise
+     * {@link VersionConflictException}. The result carries the new version: expected + 1, or without an
+     * expected one the version the UPDATE itself wrote (see {@link TodoRepository#lastWrittenVersion()}).
+     */
+    @Transactional
+    public Todo updateTodo(Long id, Todo newTodo, Long expectedVersion) {
+        UserPrincipal user = userService.getCurrentUser();
+        log.info("Updating todo ID: {}", id);
+        int affected = expectedVersion == null
+                ? todoRepository.updateTextAndDone(id, user.id(), newTodo.getText(), newTodo.isDone())
+                : todoRepository.updateTextAndDoneIfVersion(id, user.id(), newTodo.getText(), newTodo.isDone(), expectedVersion);
+        requireApplied(affected, id, expectedVersion, user);
+        changed(user.id());
         log.info("Successfully updated todo ID: {}", id);
-        return updatedTodo;
+        return Todo.builder().id(id).text(newTodo.getText()).done(newTodo.isDone())
+                .version(newVersion(expectedVersion))
+                .build();
     }
 
+    @Transactional
     public Todo setDone(Long id, boolean done) {
+        return setDone(id, done, null);
+    }
+
+    /**
+     * Sets done in one UPDATE, conditional like {@link #updateTodo(Long, Todo, Long)}. The result holds the id,
+     * done and the new version; the text is not read back.
+     */
+    @Transactional
+    public Todo setDone(Long id, boolean done, Long expectedVersion) {
+        UserPrincipal user = userService.getCurrentUser();
         log.info("Setting done status to {} for todo ID: {}", done, id);
-        Todo todo = getTodoById(id);
-        todo.setDone(done);
-        return todoRepository.save(todo);
+        int affected = expectedVersion == null
+                ? todoRepository.setDone(id, user.id(), done)
+                : todoRepository.setDoneIfVersion(id, user.id(), done, expectedVersion);
+        requireApplied(affected, id, expectedVersion, user);
+        changed(user.id());
+        return Todo.builder().id(id).done(done).version(newVersion(expectedVersion)).build();
     }
 
     public Todo markTodoDone(Long id) { return setDone(id, true); }
@@ -88,39 +197,89 @@ public class TodoService {
     public Todo markTodoUndone(Long id) { return setDone(id, false); }
 
     public Todo deleteTodo(Long id) {
+        return deleteTodo(id, null);
+    }
+
+    /**
+     * Deletes in one statement, so the result is only the id and, with an expected version, the version it was
+     * deleted at; text and done are not read back.
+     */
+    public Todo deleteTodo(Long id, Long expectedVersion) {
+        UserPrincipal user = userService.getCurrentUser();
         log.info("Deleting todo ID: {}", id);
-        Todo todo = getTodoById(id);
-        todoRepository.deleteById(id);
+        int affected = expectedVersion == null
+                ? todoRepository.deleteOwned(id, user.id())
+                : todoRepository.deleteOwnedIfVersion(id, user.id(), expectedVersion);
+        requireApplied(affected, id, expectedVersion, user);
+        changed(user.id());
         log.info("Successfully deleted todo ID: {}", id);
-        return todo;
+        return Todo.builder().id(id).version(expectedVersion).build();
     }
 
+    /**
+     * Flips done in the database (SET done = NOT done), so concurrent toggles cannot overwrite each other.
+     */
     public void toggleDone(Long id) {
+        UserPrincipal user = userService.getCurrentUser();
         log.info("Toggling done status for todo ID: {}", id);
-        Todo t = getTodoById(id);
-        setDone(id, !t.isDone());
+        requireFound(todoRepository.toggleDone(id, user.id()), id, user);
+        changed(user.id());
     }
 
     public void assignToList(Long todoId, Long listIdOrNull) {
-        User user = userService.getCurrentUser();
-        log.info("Assigning todo ID: {} to list ID: {} for user: {}", todoId, listIdOrNull, user.getUsername());
+        UserPrincipal user = userService.getCurrentUser();
+        log.info("Assigning todo ID: {} to list ID: {} for user: {}", todoId, listIdOrNull, user.username());
         // Ensure todo belongs to current user (will throw if not)
         getTodoById(todoId);
 
         if (listIdOrNull == null) {
             log.info("Unassigning todo ID: {} from list", todoId);
-            todoRepository.unassignFromList(todoId, user.getId());
+            todoRepository.unassignFromList(todoId, user.id());
+            changed(user.id());
             return;
         }
 
         // Validate target list belongs to current user
-        todoListRepository.findByIdAndUser_Id(listIdOrNull, user.getId())
+        todoListRepository.findByIdAndUser_Id(listIdOrNull, user.id())
                 .orElseThrow(() -> {
-                    log.error("List ID: {} not found for user: {}", listIdOrNull, user.getUsername());
+                    log.error("List ID: {} not found for user: {}", listIdOrNull, user.username());
                     return new IllegalArgumentException("List not found");
                 });
 
-        todoRepository.assignToList(todoId, listIdOrNull, user.getId());
+        todoRepository.assignToList(todoId, listIdOrNull, user.id());
+        changed(user.id());
         log.info("Successfully assigned todo ID: {} to list ID: {}", todoId, listIdOrNull);
     }
+
+    /**
+     * The version a write that just applied left behind. Must run in the write's transaction, so that
+     * LAST_INSERT_ID is read on the connection that ran the UPDATE.
+     */
+    private Long newVersion(Long expectedVersion) {
+        return expectedVersion == null ? todoRepository.lastWrittenVersion() : expectedVersion + 1;
+    }
+
+    private static void requireFound(int affected, Long id, UserPrincipal user) {
+        if (affected == 0) {
+            log.error("Todo ID: {} not found for user: {}", id, user.username());
+            throw new TodoNotFoundException("todo is not found");
+        }
+    }
+
+    /**
+     * A conditional write that touched nothing either lost the race or hit a missing todo; one extra
+     * lookup on that (rare) path tells the two apart.
+     */
+    private void requireApplied(int affected, Long id, Long expectedVersion, UserPrincipal user) {
+        if (affected == 0 && expectedVersion != null && todoRepository.existsByIdAndUser_Id(id, user.id())) {
+            log.info("Todo ID: {} is no longer at version {}", id, expectedVersion);
+            throw new VersionConflictException("todo was changed by someone else");
+        }
+        requireFound(affected, id, user);
+    }
+
+    private void changed(Long userId) {
+        todoStatsService.invalidate(userId);
+        todoDataVersionService.bump(userId);
+    }
 }
@@ -0,0 +1,64 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.TodoStats;
+import com.codingnomads.demo_web.repositories.TodoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user todo counts, computed by one {@code GROUP BY todo_list_id, done} query and cached in memory.
+ * <p>
+ * {@link TodoService} evicts a user's entry whenever it changes one of their todos (see {@link MeteredCaches}).
+ */
+@Service
+public class TodoStatsService {
+
+    private final TodoRepository todoRepository;
+    private final Cache<Long, TodoStats> cache;
+
+    public TodoStatsService(TodoRepository todoRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${todos.stats-cache.ttl:PT1M}") Duration ttl,
+                            @Value("${todos.stats-cache.max-size:10000}") long maxSize) {
+        this.todoRepository = todoRepository;
+        this.cache = MeteredCaches.build("todoStats", ttl, maxSize, meterRegistry);
+    }
+
+    public TodoStats stats(Long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    /**
+     * Inside a transaction the entry is evicted once it has committed.
+     */
+    public void invalidate(Long userId) {
+        AfterCommit.run(() -> cache.invalidate(userId));
+    }
+
+    private TodoStats load(Long userId) {
+        long done = 0;
+        long open = 0;
+        long unlisted = 0;
+        Map<Long, Long> perList = new HashMap<>();
+        for (TodoRepository.CountByListAndDone row : todoRepository.countByListAndDone(userId)) {
+            long count = row.getTodos();
+            if (Boolean.TRUE.equals(row.getDone())) {
+                done += count;
+            } else {
+                open += count;
+            }
+            if (row.getListId() == null) {
+                unlisted += count;
+            } else {
+                perList.merge(row.getListId(), count, Long::sum);
+            }
+        }
+        return new TodoStats(done + open, done, open, perList, unlisted);
+    }
+}
@@ -0,0 +1,84 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked API tokens (by jti) that have not expired yet.
+ * <p>
+ * With this index the JWT filter can accept a token on signature + expiry + "not revoked" without asking the database.
+ * <ul>
+ *     <li>On startup it is loaded from {@code api_tokens WHERE revoked = true AND expires_at > now}.</li>
+ *     <li>Revocations on this node are pulled in immediately: {@link ApiTokenService} polls right after its UPDATE.</li>
+ *     <li>Revocations on other nodes arrive through a periodic delta poll on {@code revoked_at}.</li>
+ *     <li>Entries are pruned once the token expires - the signature check rejects it from then on anyway.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TokenRevocationIndex {
+
+    // Tolerates clock differences between nodes and transactions that commit after we polled
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(10);
+
+    private final ApiTokenRepository apiTokenRepository;
+    private final Clock clock;
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile Instant lastPoll;
+
+    public TokenRevocationIndex(ApiTokenRepository apiTokenRepository, MeterRegistry meterRegistry, Clock clock) {
+        this.apiTokenRepository = apiTokenRepository;
+        this.clock = clock;
+        Gauge.builder("api.token.revocations", revoked, Map::size)
+                .description("Revoked, not yet expired API tokens held in memory")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        Instant now = clock.instant();
+        apiTokenRepository.findByRevokedTrueAndExpiresAtAfter(now)
+                .forEach(t -> revoked.put(t.getJti(), t.getExpiresAt()));
+        lastPoll = now;
+        log.info("Loaded {} revoked API tokens into the revocation index", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        return revoked.containsKey(jti);
+    }
+
+    public void add(String jti, Instant expiresAt) {
+        if (expiresAt.isAfter(clock.instant())) {
+            revoked.put(jti, expiresAt);
+        }
+    }
+
+    /**
+     * Picks up revocations made since the last poll and drops entries whose tokens have expired.
+     * Also called right after bulk revocations on this node.
+     */
+    @Scheduled(fixedDelayString = "${api.revocation.poll-interval:PT15S}",
+            initialDelayString = "${api.revocation.poll-interval:PT15S}")
+    public synchronized void poll() {
+        Instant now = clock.instant();
+        Instant since = lastPoll.minus(POLL_OVERLAP);
+        int before = revoked.size();
+        apiTokenRepository.findByRevokedTrueAndRevokedAtAfterAndExpiresAtAfter(since, now)
+                .forEach(t -> revoked.put(t.getJti(), t.getExpiresAt()));
+        lastPoll = now;
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        log.debug("Revocation index refreshed: {} -> {} entries", before, revoked.size());
+    }
+}
@@ -0,0 +1,38 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of {@link UserPrincipal}s by username, so API authentication does not load the
+ * {@code User} entity (and its roles join) on every request.
+ * Admin changes evict the entry (see {@link UserService#updateAdminEditableFields}).
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache {
+
+    private final Cache<String, UserPrincipal> cache;
+
+    public UserPrincipalCache(MeterRegistry meterRegistry,
+                              @Value("${api.principal-cache.ttl:PT1M}") Duration ttl,
+                              @Value("${api.principal-cache.max-size:10000}") long maxSize) {
+        this.cache = MeteredCaches.build("userPrincipals", ttl, maxSize, meterRegistry);
+    }
+
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+        log.debug("Evicted cached principal for user: {}", username);
+    }
+}
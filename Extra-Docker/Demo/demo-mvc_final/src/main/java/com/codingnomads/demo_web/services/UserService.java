@@ -2,6 +2,7 @@ package com.codingnomads.demo_web.services;
 
 import com.codingnomads.demo_web.models.Role;
 import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.repositories.UserRepository;
 import com.codingnomads.demo_web.repositories.RoleRepository;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +27,9 @@ public class UserService implements UserDetailsService {
     private final RoleService roleService;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final UserPrincipalCache userPrincipalCache;
+    private final SessionWatermarkService sessionWatermarkService;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -36,7 +40,15 @@ public class UserService implements UserDetailsService {
         });
     }
 
-    public User getCurrentUser() {
+    /**
+     * Principal for API authentication, served from the {@link UserPrincipalCache} so repeated
+     * requests do not load the entity and its roles.
+     */
+    public UserPrincipal loadPrincipal(String username) throws UsernameNotFoundException {
+        return userPrincipalCache.get(username, u -> UserPrincipal.from((User) loadUserByUsername(u)));
+    }
+
+    public UserPrincipal getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
         if (auth == null || !auth.isAuthenticated() || (auth instanceof AnonymousAuthenticationToken)) {
@@ -44,11 +56,27 @@ public class UserService implements UserDetailsService {
             return null;
         }
 
-        User user = (User) auth.getPrincipal();
-        log.trace("Current authenticated user: {}", user.getUsername());
+        // API requests carry a UserPrincipal; form logins still hold the User entity from loadUserByUsername
+        UserPrincipal user;
+        if (auth.getPrincipal() instanceof UserPrincipal principal) {
+            user = principal;
+        } else if (auth.getPrincipal() instanceof User entity) {
+            user = UserPrincipal.from(entity);
+        } else {
+            throw new IllegalStateException("Unexpected principal type: " + auth.getPrincipal().getClass().getName());
+        }
+        log.trace("Current authenticated user: {}", user.username());
         return user;
     }
 
+    /**
+     * Entity reference for the given user id that does not hit the database,
+     * for linking new rows (todos, lists, tokens) to their owner.
+     */
+    public User getReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
 
     public void register(String username, String password, String confirmPassword) {
         log.info("Attempting to register new user: {}", username);
@@ -133,6 +161,11 @@ public class UserService implements UserDetailsService {
             user.setRoles(roles);
         }
         userRepository.save(user);
+        // Cached API authentications carry the old flags/roles - drop them
+        verifiedTokenCache.evictUser(id);
+        userPrincipalCache.evict(user.getUsername());
+        // Signed login cookies carry the old flags/roles too - make the user log in again
+        sessionWatermarkService.invalidateSessions(id);
         log.info("Successfully updated user ID: {}", id);
     }
 }
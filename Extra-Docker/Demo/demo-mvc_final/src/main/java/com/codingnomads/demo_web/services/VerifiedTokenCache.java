@@ -0,0 +1,98 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-process cache of API access tokens whose signature, expiry and type were already verified.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the JWT, so a hit means these exact token bytes were verified before.
+ * Each entry expires together with its token. Revocation does not evict: the JWT filter checks
+ * {@link TokenRevocationIndex#isRevoked} on every cache hit. User changes evict that user's entries.
+ * Hit/miss/eviction statistics are published as the {@code cache.*} metrics with {@code cache=verifiedApiTokens}.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    public record Entry(String jti, Long userId, UserPrincipal principal, Instant expiresAt) {
+    }
+
+    private final Cache<String, Entry> cache;
+    private final Counter userInvalidations;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${api.token-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return nanosUntil(entry.expiresAt());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return nanosUntil(entry.expiresAt());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedApiTokens");
+        this.userInvalidations = Counter.builder("api.token.cache.invalidations")
+                .description("Cache entries dropped because the owning user was changed")
+                .tag("reason", "user")
+                .register(meterRegistry);
+    }
+
+    public Entry get(String digest) {
+        return cache.getIfPresent(digest);
+    }
+
+    public void put(String digest, Entry entry) {
+        if (entry.expiresAt().isAfter(Instant.now())) {
+            cache.put(digest, entry);
+        }
+    }
+
+    public void evictUser(Long userId) {
+        int removed = evictWhere(e -> e.userId().equals(userId));
+        userInvalidations.increment(removed);
+        log.debug("Evicted {} cached entries for user ID: {}", removed, userId);
+    }
+
+    private int evictWhere(Predicate<Entry> predicate) {
+        // Admin-side operations only; a scan over a bounded cache is cheaper than maintaining secondary indexes
+        int removed = 0;
+        Iterator<Entry> it = cache.asMap().values().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static long nanosUntil(Instant expiresAt) {
+        return Math.max(0L, Duration.between(Instant.now(), expiresAt).toNanos());
+    }
+}
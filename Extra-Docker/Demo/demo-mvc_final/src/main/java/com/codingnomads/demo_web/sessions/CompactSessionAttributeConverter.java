@@ -0,0 +1,186 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Converts session attributes to and from the bytes stored in {@code SPRING_SESSION_ATTRIBUTES}.
+ * <p>
+ * The {@link SecurityContext} of a logged-in user is written in a small binary form: principal id, username,
+ * account flags and authority names - no password hash, no JPA entity, no request details. It is read back as a
+ * {@link UserPrincipal}. Every other attribute (CSRF token, saved request, flash maps) is JDK-serialized as before.
+ * <p>
+ * Both forms can be read: JDK serialization streams always start with {@code 0xACED}, compact values with
+ * {@link #MAGIC}. Sessions written before this converter existed therefore keep working.
+ * Serialized sizes are recorded in the {@code spring.session.attribute.size} distribution summary.
+ */
+public class CompactSessionAttributeConverter implements GenericConverter {
+
+    static final byte MAGIC = 'S';
+    static final byte VERSION = 1;
+
+    private static final int ACCOUNT_NON_EXPIRED = 1;
+    private static final int ACCOUNT_NON_LOCKED = 1 << 1;
+    private static final int CREDENTIALS_NON_EXPIRED = 1 << 2;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer;
+    private final DistributionSummary compactSize;
+    private final DistributionSummary jdkSize;
+
+    public CompactSessionAttributeConverter(MeterRegistry meterRegistry, ClassLoader classLoader) {
+        this.deserializer = new DeserializingConverter(classLoader);
+        this.compactSize = sizeSummary(meterRegistry, "compact");
+        this.jdkSize = sizeSummary(meterRegistry, "jdk");
+    }
+
+    private static DistributionSummary sizeSummary(MeterRegistry meterRegistry, String codec) {
+        return DistributionSummary.builder("spring.session.attribute.size")
+                .description("Serialized size of session attributes written to the session store")
+                .baseUnit("bytes")
+                .tag("codec", codec)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes() {
+        return Set.of(new ConvertiblePair(Object.class, byte[].class), new ConvertiblePair(byte[].class, Object.class));
+    }
+
+    @Override
+    public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+        if (source == null) {
+            return null;
+        }
+        if (targetType.getType() == byte[].class) {
+            return serialize(source);
+        }
+        return deserialize((byte[]) source);
+    }
+
+    byte[] serialize(Object value) {
+        UserPrincipal principal = compactPrincipal(value);
+        if (principal == null) {
+            byte[] bytes = serializer.convert(value);
+            jdkSize.record(bytes.length);
+            return bytes;
+        }
+        byte[] bytes = encode(principal);
+        compactSize.record(bytes.length);
+        return bytes;
+    }
+
+    Object deserialize(byte[] bytes) {
+        if (bytes.length > 0 && bytes[0] == MAGIC) {
+            return decode(bytes);
+        }
+        return deserializer.convert(bytes);
+    }
+
+    /**
+     * The principal to write in compact form, or null if the value has to go through JDK serialization.
+     */
+    private static UserPrincipal compactPrincipal(Object value) {
+        if (!(value instanceof SecurityContext context)) {
+            return null;
+        }
+        return principalOf(context.getAuthentication());
+    }
+
+    /**
+     * The principal of an authenticated form/API login, or null for anything else (anonymous, other token types).
+     */
+    static UserPrincipal principalOf(Authentication auth) {
+        if (!(auth instanceof UsernamePasswordAuthenticationToken) || !auth.isAuthenticated()) {
+            return null;
+        }
+        if (auth.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        if (auth.getPrincipal() instanceof User user && user.getId() != null) {
+            return UserPrincipal.from(user);
+        }
+        return null;
+    }
+
+    private static byte[] encode(UserPrincipal principal) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            writePrincipal(out, principal);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static SecurityContext decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            in.readByte(); // MAGIC
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported session security context version: " + version);
+            }
+            return securityContext(readPrincipal(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes id, username, account flags and authority names; shared with the signed login cookie.
+     */
+    static void writePrincipal(DataOutputStream out, UserPrincipal principal) throws IOException {
+        out.writeLong(principal.id());
+        out.writeUTF(principal.username());
+        int flags = (principal.accountNonExpired() ? ACCOUNT_NON_EXPIRED : 0)
+                | (principal.accountNonLocked() ? ACCOUNT_NON_LOCKED : 0)
+                | (principal.credentialsNonExpired() ? CREDENTIALS_NON_EXPIRED : 0);
+        out.writeByte(flags);
+        out.writeShort(principal.authorities().size());
+        for (String authority : principal.authorities()) {
+            out.writeUTF(authority);
+        }
+    }
+
+    static UserPrincipal readPrincipal(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String username = in.readUTF();
+        int flags = in.readByte();
+        int count = in.readShort();
+        Set<String> authorities = new HashSet<>(count);
+        for (int i = 0; i < count; i++) {
+            authorities.add(in.readUTF());
+        }
+        return new UserPrincipal(id, username,
+                (flags & ACCOUNT_NON_EXPIRED) != 0,
+                (flags & ACCOUNT_NON_LOCKED) != 0,
+                (flags & CREDENTIALS_NON_EXPIRED) != 0,
+                authorities);
+    }
+
+    static SecurityContext securityContext(UserPrincipal principal) {
+        return new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+}
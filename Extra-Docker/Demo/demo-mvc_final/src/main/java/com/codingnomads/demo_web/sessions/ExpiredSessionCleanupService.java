@@ -0,0 +1,84 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.services.ChunkedDelete;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Background job that removes expired Spring Session rows. Replaces the repository's built-in cleanup
+ * ({@code spring.session.jdbc.cleanup-cron=-}), which deletes every expired session in one statement.
+ * <p>
+ * Sessions are deleted as a {@link ChunkedDelete} of {@code session.cleanup.chunk-size} primary ids taken in
+ * {@code EXPIRY_TIME} order from {@code SPRING_SESSION_IX2}. Their attributes go with them ({@code ON DELETE CASCADE}).
+ * The delete re-checks the expiry time, so a session used between the select and the delete survives.
+ * <p>
+ * Not needed with the {@code redis-session} profile, where Redis expires sessions itself.
+ */
+@Service
+@Profile("!redis-session")
+@Slf4j
+public class ExpiredSessionCleanupService {
+
+    private static final String SELECT_EXPIRED = """
+            SELECT PRIMARY_ID FROM %s
+             WHERE EXPIRY_TIME < ?
+             ORDER BY EXPIRY_TIME
+             LIMIT ?""";
+
+    private static final String DELETE_EXPIRED = "DELETE FROM %s WHERE EXPIRY_TIME < ? AND PRIMARY_ID IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+    private final ChunkedDelete chunkedDelete;
+
+    public ExpiredSessionCleanupService(JdbcTemplate jdbcTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${spring.session.jdbc.table-name:" + JdbcIndexedSessionRepository.DEFAULT_TABLE_NAME + "}") String tableName,
+                                        @Value("${session.cleanup.chunk-size:500}") int chunkSize,
+                                        @Value("${session.cleanup.pause:PT0.1S}") Duration pause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.chunkedDelete = new ChunkedDelete(meterRegistry, "spring.session.cleanup",
+                "Expired sessions deleted by the cleanup job", chunkSize, pause);
+    }
+
+    @Scheduled(cron = "${session.cleanup.cron:0 */10 * * * *}")
+    public void cleanupScheduled() {
+        cleanup(Instant.now());
+    }
+
+    /**
+     * Deletes every session that expired before {@code cutoff} and returns how many were removed.
+     */
+    public long cleanup(Instant cutoff) {
+        long expiry = cutoff.toEpochMilli();
+        long total = chunkedDelete.run(limit -> {
+            List<String> ids = jdbcTemplate.queryForList(SELECT_EXPIRED.formatted(tableName), String.class, expiry, limit);
+            return new ChunkedDelete.Chunk(ids.size(), ids.isEmpty() ? 0 : delete(ids, expiry));
+        });
+        if (total > 0) {
+            log.info("Deleted {} expired sessions", total);
+        }
+        return total;
+    }
+
+    private int delete(List<String> ids, long expiry) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(expiry);
+        args.addAll(ids);
+        return jdbcTemplate.update(DELETE_EXPIRED.formatted(tableName, placeholders), args.toArray());
+    }
+}
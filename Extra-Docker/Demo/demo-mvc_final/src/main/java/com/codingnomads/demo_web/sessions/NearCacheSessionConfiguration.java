@@ -0,0 +1,47 @@
+package com.codingnomads.demo_web.sessions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.session.SessionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+import java.time.Duration;
+
+/**
+ * Puts {@link NearCacheSessionRepository} in front of the JDBC session repository.
+ * <p>
+ * Registered as an auto-configuration (see {@code META-INF/spring/...AutoConfiguration.imports}) so that it runs after
+ * Spring Boot's session setup: Boot only creates the JDBC repository if no other {@code SessionRepository} exists yet.
+ * Being primary, the near-cache is the repository the {@code SessionRepositoryFilter} uses for every request, while
+ * Boot's JDBC repository keeps handling schema, cleanup and principal-name lookups.
+ * <p>
+ * Off unless {@code session.near-cache.enabled=true}: a logout on another node only reaches this one after the
+ * cache TTL, so it is meant for single-node deployments.
+ */
+@AutoConfiguration(after = SessionAutoConfiguration.class)
+@ConditionalOnBean(JdbcIndexedSessionRepository.class)
+@ConditionalOnProperty(name = "session.near-cache.enabled", havingValue = "true")
+public class NearCacheSessionConfiguration {
+
+    @Bean
+    @Primary
+    public NearCacheSessionRepository nearCacheSessionRepository(
+            JdbcIndexedSessionRepository sessionRepository,
+            JdbcTemplate jdbcTemplate,
+            @Qualifier("springSessionConversionService") ConversionService conversionService,
+            MeterRegistry meterRegistry,
+            @Value("${spring.session.jdbc.table-name:" + JdbcIndexedSessionRepository.DEFAULT_TABLE_NAME + "}") String tableName,
+            @Value("${session.near-cache.ttl:PT30S}") Duration ttl,
+            @Value("${session.near-cache.max-size:10000}") long maxSize) {
+        return new NearCacheSessionRepository(sessionRepository, jdbcTemplate, conversionService, meterRegistry,
+                tableName, ttl, maxSize);
+    }
+}
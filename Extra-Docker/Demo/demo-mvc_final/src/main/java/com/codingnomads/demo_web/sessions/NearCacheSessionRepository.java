@@ -0,0 +1,324 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.services.MeteredCaches;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-node cache in front of the JDBC session repository.
+ * <p>
+ * A page view normally costs one SELECT (load session + attributes) and one UPDATE (LAST_ACCESS_TIME).
+ * With this decorator a recently used session is served from memory, and a request that only touched the
+ * session has its last access time recorded in memory and written by {@link #flush()} in one JDBC batch
+ * every few seconds. Requests that change the session (attributes, id, timeout) are written through to the
+ * JDBC repository immediately and drop the cached copy, so the next request reloads the committed state.
+ * <p>
+ * Cached attributes are kept as bytes (via {@code springSessionConversionService}) and decoded per request,
+ * so requests never share mutable attribute objects. Logout ({@link #deleteById}) and expiry evict the entry.
+ * Changes made on another node, logouts included, become visible here after at most {@code session.near-cache.ttl},
+ * which is why it is off by default (see {@link NearCacheSessionConfiguration}). The TTL runs from when the entry
+ * was loaded: touches advance the snapshot's last access time in place and never write the entry again.
+ */
+@Slf4j
+public class NearCacheSessionRepository implements SessionRepository<NearCacheSessionRepository.CachedSession> {
+
+    private static final TypeDescriptor OBJECT = TypeDescriptor.valueOf(Object.class);
+    private static final TypeDescriptor BYTES = TypeDescriptor.valueOf(byte[].class);
+
+    private static final String TOUCH_SQL = """
+            UPDATE %s
+               SET LAST_ACCESS_TIME = ?, EXPIRY_TIME = ?
+             WHERE SESSION_ID = ? AND LAST_ACCESS_TIME < ?""";
+
+    record Snapshot(String id, Instant creationTime, AtomicReference<Instant> lastAccess, Duration maxInactiveInterval,
+                    Map<String, byte[]> attributes) {
+        Instant lastAccessedTime() {
+            return lastAccess.get();
+        }
+
+        void touch(Instant time) {
+            lastAccess.accumulateAndGet(time, (current, next) -> next.isAfter(current) ? next : current);
+        }
+
+        boolean isExpired(Instant lastAccessedTime, Instant now) {
+            return !maxInactiveInterval.isNegative() && now.minus(maxInactiveInterval).isAfter(lastAccessedTime);
+        }
+    }
+
+    private record PendingAccess(long lastAccessMillis, long expiryMillis) {
+        PendingAccess latest(PendingAccess other) {
+            return other.lastAccessMillis > lastAccessMillis ? other : this;
+        }
+    }
+
+    private final SessionRepository<Session> delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConversionService conversionService;
+    private final String touchSql;
+    private final Cache<String, Snapshot> cache;
+    private final Map<String, PendingAccess> pending = new ConcurrentHashMap<>();
+    private final Counter writeThroughs;
+    private final Counter flushedTouches;
+
+    public NearCacheSessionRepository(SessionRepository<? extends Session> delegate,
+                                      JdbcTemplate jdbcTemplate,
+                                      ConversionService conversionService,
+                                      MeterRegistry meterRegistry,
+                                      String tableName,
+                                      Duration ttl,
+                                      long maxSize) {
+        this(delegate, jdbcTemplate, conversionService, meterRegistry, tableName, ttl, maxSize, Ticker.systemTicker());
+    }
+
+    @SuppressWarnings("unchecked")
+    NearCacheSessionRepository(SessionRepository<? extends Session> delegate,
+                               JdbcTemplate jdbcTemplate,
+                               ConversionService conversionService,
+                               MeterRegistry meterRegistry,
+                               String tableName,
+                               Duration ttl,
+                               long maxSize,
+                               Ticker ticker) {
+        this.delegate = (SessionRepository<Session>) delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.conversionService = conversionService;
+        this.touchSql = TOUCH_SQL.formatted(tableName);
+        this.cache = MeteredCaches.build("springSessions", ttl, maxSize, meterRegistry, ticker);
+        this.writeThroughs = Counter.builder("spring.session.near-cache.write-through")
+                .description("Session saves written to the store immediately because the session changed")
+                .register(meterRegistry);
+        this.flushedTouches = Counter.builder("spring.session.near-cache.flushed")
+                .description("Deferred last-access-time updates written in batches")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CachedSession createSession() {
+        return new CachedSession(delegate.createSession());
+    }
+
+    @Override
+    public CachedSession findById(String id) {
+        Snapshot snapshot = cache.getIfPresent(id);
+        if (snapshot != null && snapshot.isExpired(snapshot.lastAccessedTime(), Instant.now())) {
+            cache.invalidate(id);
+            snapshot = null;
+        }
+        if (snapshot != null) {
+            return new CachedSession(snapshot, null);
+        }
+        // Miss: the delegate also deletes the row if the session has expired
+        Session loaded = delegate.findById(id);
+        if (loaded == null) {
+            pending.remove(id);
+            return null;
+        }
+        snapshot = snapshot(loaded);
+        cache.put(id, snapshot);
+        return new CachedSession(snapshot, loaded);
+    }
+
+    @Override
+    public void save(CachedSession session) {
+        if (session.backing != null && session.writeThrough) {
+            delegate.save(session.backing);
+            writeThroughs.increment();
+            // Concurrent requests may have written other attributes; reload from the store next time
+            cache.invalidate(session.originalId);
+            cache.invalidate(session.backing.getId());
+            return;
+        }
+        if (session.touched) {
+            Instant lastAccess = session.getLastAccessedTime();
+            Duration maxInactive = session.getMaxInactiveInterval();
+            PendingAccess access = new PendingAccess(lastAccess.toEpochMilli(), lastAccess.plus(maxInactive).toEpochMilli());
+            pending.merge(session.getId(), access, PendingAccess::latest);
+            // In place: writing the entry back would restart its TTL and keep an active session cached forever
+            Snapshot cached = cache.asMap().get(session.getId());
+            if (cached != null) {
+                cached.touch(lastAccess);
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        cache.invalidate(id);
+        pending.remove(id);
+        delegate.deleteById(id);
+    }
+
+    /**
+     * Writes the collected last access times in one JDBC batch. The {@code LAST_ACCESS_TIME < ?} guard keeps an
+     * older deferred touch from overwriting a newer write-through.
+     */
+    @Scheduled(fixedDelayString = "${session.near-cache.flush-interval:PT5S}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (String id : List.copyOf(pending.keySet())) {
+            PendingAccess access = pending.remove(id);
+            if (access != null) {
+                batch.add(new Object[]{access.lastAccessMillis(), access.expiryMillis(), id, access.lastAccessMillis()});
+            }
+        }
+        jdbcTemplate.batchUpdate(touchSql, batch);
+        flushedTouches.increment(batch.size());
+        log.debug("Flushed last access time of {} sessions", batch.size());
+    }
+
+    private Snapshot snapshot(Session session) {
+        Map<String, byte[]> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            attributes.put(name, (byte[]) conversionService.convert(session.getAttribute(name), OBJECT, BYTES));
+        }
+        return new Snapshot(session.getId(), session.getCreationTime(), new AtomicReference<>(session.getLastAccessedTime()),
+                session.getMaxInactiveInterval(), Map.copyOf(attributes));
+    }
+
+    /**
+     * Session handed to {@code SessionRepositoryFilter}. Reads are served from the snapshot; the first change
+     * switches it to the store's own session object (loading it if this request was a cache hit).
+     */
+    public final class CachedSession implements Session {
+        private final String originalId;
+        private final Snapshot snapshot;
+        private final Map<String, Object> decoded = new HashMap<>();
+        private Session backing;
+        private boolean writeThrough;
+        private boolean touched;
+        private Instant lastAccessedTime;
+
+        private CachedSession(Snapshot snapshot, Session loaded) {
+            this.originalId = snapshot.id();
+            this.snapshot = snapshot;
+            this.backing = loaded;
+            this.lastAccessedTime = snapshot.lastAccessedTime();
+        }
+
+        private CachedSession(Session created) {
+            this.originalId = created.getId();
+            this.snapshot = null;
+            this.backing = created;
+            this.writeThrough = true;
+        }
+
+        private Session writable() {
+            if (backing == null) {
+                backing = delegate.findById(originalId);
+                if (backing == null) {
+                    // Invalidated or expired on another node while we still had it cached
+                    cache.invalidate(originalId);
+                    throw new IllegalStateException("Session " + originalId + " no longer exists");
+                }
+            }
+            if (!writeThrough && touched) {
+                backing.setLastAccessedTime(lastAccessedTime);
+            }
+            writeThrough = true;
+            return backing;
+        }
+
+        @Override
+        public String getId() {
+            return writeThrough ? backing.getId() : originalId;
+        }
+
+        @Override
+        public String changeSessionId() {
+            return writable().changeSessionId();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getAttribute(String name) {
+            if (writeThrough) {
+                return backing.getAttribute(name);
+            }
+            byte[] bytes = snapshot.attributes().get(name);
+            if (bytes == null) {
+                return null;
+            }
+            return (T) decoded.computeIfAbsent(name, n -> conversionService.convert(bytes, BYTES, OBJECT));
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return writeThrough ? backing.getAttributeNames() : snapshot.attributes().keySet();
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            writable().setAttribute(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            writable().removeAttribute(name);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return writeThrough ? backing.getCreationTime() : snapshot.creationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            if (writeThrough) {
+                backing.setLastAccessedTime(lastAccessedTime);
+                return;
+            }
+            this.lastAccessedTime = lastAccessedTime;
+            this.touched = true;
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return writeThrough ? backing.getLastAccessedTime() : lastAccessedTime;
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            if (!interval.equals(getMaxInactiveInterval())) {
+                writable().setMaxInactiveInterval(interval);
+            }
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return writeThrough ? backing.getMaxInactiveInterval() : snapshot.maxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            if (writeThrough) {
+                return backing.isExpired();
+            }
+            Instant latest = lastAccessedTime.isAfter(snapshot.lastAccessedTime()) ? lastAccessedTime : snapshot.lastAccessedTime();
+            return snapshot.isExpired(latest, Instant.now());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.codingnomads.demo_web.sessions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Session settings for the {@code redis-session} profile, where Spring Boot stores sessions in Redis.
+ */
+@Configuration
+@Profile("redis-session")
+public class RedisSessionStoreConfiguration {
+
+    /**
+     * Spring Session Redis looks up a serializer by this bean name for session attributes.
+     * Uses the same compact security context format as the JDBC store (see {@link CompactSessionAttributeConverter}).
+     */
+    @Bean("springSessionDefaultRedisSerializer")
+    public RedisSerializer<Object> springSessionDefaultRedisSerializer(MeterRegistry meterRegistry) {
+        CompactSessionAttributeConverter converter = new CompactSessionAttributeConverter(meterRegistry, getClass().getClassLoader());
+        // Like JdkSerializationRedisSerializer, null is stored as an empty value (e.g. for removed attributes)
+        return new RedisSerializer<>() {
+            @Override
+            public byte[] serialize(Object value) {
+                return value == null ? new byte[0] : converter.serialize(value);
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) {
+                return bytes == null || bytes.length == 0 ? null : converter.deserialize(bytes);
+            }
+        };
+    }
+}
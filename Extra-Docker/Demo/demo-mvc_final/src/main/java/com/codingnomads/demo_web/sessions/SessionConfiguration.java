@@ -0,0 +1,25 @@
+package com.codingnomads.demo_web.sessions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+/**
+ * Tuning for the Spring Session store that holds the MVC login sessions.
+ */
+@Configuration
+public class SessionConfiguration {
+
+    /**
+     * Spring Session JDBC looks up a ConversionService by this bean name to turn session attributes into bytes.
+     * Ours writes the security context compactly (see {@link CompactSessionAttributeConverter}).
+     */
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService(MeterRegistry meterRegistry) {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(new CompactSessionAttributeConverter(meterRegistry, getClass().getClassLoader()));
+        return conversionService;
+    }
+}
@@ -0,0 +1,242 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.services.SessionWatermarkService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keeps the MVC login in an HMAC-signed cookie instead of the session store ({@code mvc.auth-cookie.enabled=true}).
+ * <p>
+ * The cookie holds user id, username, account flags, roles, issued-at and expires-at (the compact principal format
+ * of {@link CompactSessionAttributeConverter}), signed with HMAC-SHA256. Each request rebuilds the
+ * {@link SecurityContext} from it without any store lookup; the only other check is the user's
+ * "sessions valid after" watermark, read from the in-memory {@link SessionWatermarkService} cache.
+ * <p>
+ * A cookie is written on login and cleared on logout. Since it cannot be deleted server-side, logging out also moves
+ * the user's watermark (as a {@link LogoutHandler}), so a copy of the cookie stops working too - on all of the user's
+ * devices. Role or account changes show up at the next login.
+ */
+@Slf4j
+public class SignedCookieSecurityContextRepository implements SecurityContextRepository, LogoutHandler {
+
+    static final byte VERSION = 1;
+    private static final String HMAC = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    record Payload(UserPrincipal principal, Instant issuedAt, Instant expiresAt) {
+    }
+
+    private final SecretKeySpec key;
+    private final String cookieName;
+    private final Duration ttl;
+    private final boolean secure;
+    private final SessionWatermarkService watermarks;
+    private final Clock clock;
+
+    public SignedCookieSecurityContextRepository(String secret,
+                                                 String cookieName,
+                                                 Duration ttl,
+                                                 boolean secure,
+                                                 SessionWatermarkService watermarks,
+                                                 Clock clock) {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secret.isBlank()) {
+            throw new IllegalStateException("mvc.auth-cookie.secret must be set when mvc.auth-cookie.enabled=true");
+        }
+        if (keyBytes.length < 32) {
+            throw new IllegalArgumentException("mvc.auth-cookie.secret must be at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC);
+        this.cookieName = cookieName;
+        this.ttl = ttl;
+        this.secure = secure;
+        this.watermarks = watermarks;
+        this.clock = clock;
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    @Override
+    public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
+        return new DeferredSecurityContext() {
+            private SecurityContext context;
+
+            @Override
+            public SecurityContext get() {
+                if (context == null) {
+                    SecurityContext loaded = read(request);
+                    context = loaded != null ? loaded : SecurityContextHolder.createEmptyContext();
+                }
+                return context;
+            }
+
+            @Override
+            public boolean isGenerated() {
+                return get().getAuthentication() == null;
+            }
+        };
+    }
+
+    @Override
+    @Deprecated
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        return loadDeferredContext(requestResponseHolder.getRequest()).get();
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        UserPrincipal principal = CompactSessionAttributeConverter.principalOf(context.getAuthentication());
+        if (principal == null) {
+            if (findCookie(request) != null) {
+                writeCookie(response, "", Duration.ZERO);
+            }
+            return;
+        }
+        Instant now = clock.instant();
+        writeCookie(response, sign(new Payload(principal, now, now.plus(ttl))), ttl);
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return findCookie(request) != null;
+    }
+
+    /**
+     * Invalidates every cookie issued to the user so far, including copies of the one being logged out.
+     */
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        UserPrincipal principal = CompactSessionAttributeConverter.principalOf(authentication);
+        if (principal != null) {
+            watermarks.invalidateSessions(principal.id());
+        }
+    }
+
+    private SecurityContext read(HttpServletRequest request) {
+        String value = findCookie(request);
+        if (value == null) {
+            return null;
+        }
+        Payload payload = verify(value);
+        if (payload == null) {
+            log.debug("Ignoring auth cookie with a bad signature or format");
+            return null;
+        }
+        Instant now = clock.instant();
+        if (!payload.expiresAt().isAfter(now)) {
+            return null;
+        }
+        if (!payload.issuedAt().isAfter(watermarks.validAfter(payload.principal().id()))) {
+            log.debug("Ignoring auth cookie of user ID: {} issued before its sessions were invalidated", payload.principal().id());
+            return null;
+        }
+        return CompactSessionAttributeConverter.securityContext(payload.principal());
+    }
+
+    String sign(Payload payload) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(VERSION);
+            CompactSessionAttributeConverter.writePrincipal(out, payload.principal());
+            out.writeLong(payload.issuedAt().toEpochMilli());
+            out.writeLong(payload.expiresAt().toEpochMilli());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] body = buffer.toByteArray();
+        return ENCODER.encodeToString(body) + "." + ENCODER.encodeToString(mac(body));
+    }
+
+    /**
+     * The payload of a well-formed, correctly signed cookie value, or null. Expiry is checked by the caller.
+     */
+    Payload verify(String value) {
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] body = DECODER.decode(value.substring(0, dot));
+            byte[] signature = DECODER.decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(mac(body), signature)) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+                if (in.readByte() != VERSION) {
+                    return null;
+                }
+                UserPrincipal principal = CompactSessionAttributeConverter.readPrincipal(in);
+                Instant issuedAt = Instant.ofEpochMilli(in.readLong());
+                Instant expiresAt = Instant.ofEpochMilli(in.readLong());
+                return new Payload(principal, issuedAt, expiresAt);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] mac(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    private String findCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookieName.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletResponse response, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(cookieName, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
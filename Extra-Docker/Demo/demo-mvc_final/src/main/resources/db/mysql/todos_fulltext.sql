@@ -0,0 +1,5 @@
+-- FULLTEXT index for todo search (GET /api/todos/search, search box on /todos).
+-- Apply once, after the app has created the todos table; the app only checks for it on startup.
+-- The first FULLTEXT index on an InnoDB table rebuilds the table and blocks writes to it while it runs,
+-- so on a large table run this in a quiet period.
+ALTER TABLE todos ADD FULLTEXT INDEX ft_todos_text (text);
@@ -0,0 +1,91 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.repositories.TodoListRepository;
+import com.codingnomads.demo_web.repositories.TodoRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.codingnomads.demo_web.services.ApiTokenService;
+import com.codingnomads.demo_web.services.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base for API tests against the full application on H2: signs in the seeded {@code user} with a Bearer token
+ * ({@link #authorization}) and deletes the todos, lists and tokens a test created. Extra properties go in a
+ * {@code @TestPropertySource} on the subclass.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+abstract class ApiIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TodoRepository todoRepository;
+
+    @Autowired
+    TodoListRepository todoListRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ApiTokenRepository apiTokenRepository;
+
+    @Autowired
+    ApiTokenService apiTokenService;
+
+    @Autowired
+    JwtService jwtService;
+
+    User user;
+    User admin;
+    String authorization;
+
+    @BeforeEach
+    void signIn() {
+        user = userRepository.findByUsername("user").orElseThrow();
+        admin = userRepository.findByUsername("admin").orElseThrow();
+        ApiToken session = apiTokenService.generate(UserPrincipal.from(user), Duration.ofHours(1));
+        authorization = "Bearer " + jwtService.issueAccessToken(UserPrincipal.from(user), session.getJti(), session.getExpiresAt()).token();
+    }
+
+    @AfterEach
+    void deleteTestData() {
+        todoRepository.deleteAll();
+        todoListRepository.deleteAll();
+        apiTokenRepository.deleteAll();
+    }
+
+    /**
+     * GETs {@code url} as the signed-in user and returns its (strong) ETag.
+     */
+    String etagOf(String url) throws Exception {
+        String etag = mockMvc.perform(get(url).header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+        return etag;
+    }
+}
@@ -0,0 +1,154 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.codingnomads.demo_web.services.ApiRateLimiter;
+import com.codingnomads.demo_web.services.ApiTokenService;
+import com.codingnomads.demo_web.services.ApiTokenUsageTracker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ApiTokenService apiTokenService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ApiTokenUsageTracker usageTracker;
+
+    @Autowired
+    ApiTokenRepository apiTokenRepository;
+
+    @Value("${api.rate-limit.refresh}")
+    String refreshLimit;
+
+    @Test
+    void refresh_thenCallApiWithAccessToken() throws Exception {
+        ApiToken refresh = newRefreshToken();
+
+        String body = mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer " + refresh.getToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token_type").value("Bearer"))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode json = objectMapper.readTree(body);
+        assertTrue(json.get("expires_in").asLong() <= Duration.ofMinutes(15).toSeconds());
+
+        mockMvc.perform(get("/api/todos").header("Authorization", "Bearer " + json.get("access_token").asText()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void apiCalls_countAgainstTheRefreshToken() throws Exception {
+        ApiToken refresh = newRefreshToken();
+        String body = mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer " + refresh.getToken()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String access = objectMapper.readTree(body).get("access_token").asText();
+
+        // The second call is served from the verified-token cache
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/todos").header("Authorization", "Bearer " + access))
+                    .andExpect(status().isOk());
+        }
+        usageTracker.flush();
+
+        ApiToken stored = apiTokenRepository.findById(refresh.getId()).orElseThrow();
+        assertEquals(3, stored.getUseCount());
+        assertNotNull(stored.getLastUsedAt());
+    }
+
+    @Test
+    void refreshToken_isRejectedOutsideRefreshEndpoint() throws Exception {
+        ApiToken refresh = newRefreshToken();
+
+        mockMvc.perform(get("/api/todos").header("Authorization", "Bearer " + refresh.getToken()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void revokedRefreshToken_cannotRefresh_andItsAccessTokensStopWorking() throws Exception {
+        ApiToken refresh = newRefreshToken();
+        String body = mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer " + refresh.getToken()))
+                .andReturn().getResponse().getContentAsString();
+        String accessToken = objectMapper.readTree(body).get("access_token").asText();
+
+        apiTokenService.revoke(refresh.getId());
+
+        mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer " + refresh.getToken()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/todos").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_withoutToken_isUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/auth/refresh"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_isThrottledPerClientAddress_beforeLookingAtTheToken() throws Exception {
+        long capacity = ApiRateLimiter.Limit.parse(refreshLimit).capacity();
+        for (int i = 0; i < capacity; i++) {
+            mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer guess-" + i)
+                            .with(remoteAddr("203.0.113.7")))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer " + newRefreshToken().getToken())
+                        .with(remoteAddr("203.0.113.7")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(post("/api/auth/refresh").header("Authorization", "Bearer " + newRefreshToken().getToken())
+                        .with(remoteAddr("198.51.100.1")))
+                .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor remoteAddr(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private ApiToken newRefreshToken() {
+        User user = userRepository.findByUsername("user").orElseThrow();
+        return apiTokenService.generate(UserPrincipal.from(user), Duration.ofHours(1));
+    }
+}
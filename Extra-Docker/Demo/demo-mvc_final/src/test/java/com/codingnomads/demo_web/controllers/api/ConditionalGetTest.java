@@ -0,0 +1,124 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoBatch;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.services.TodoBatchService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ConditionalGetTest extends ApiIntegrationTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    TodoBatchService todoBatchService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Todo todo;
+
+    @BeforeEach
+    void setUp() {
+        todo = todoRepository.save(Todo.builder().text("poll me").user(user).build());
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unchangedPoll_is304_withoutLoadingTodos() throws Exception {
+        String etag = etagOf("/api/todos");
+
+        // Warm the version cache, then count what a conditional poll costs
+        mockMvc.perform(get("/api/todos").header("Authorization", authorization).header(HttpHeaders.IF_NONE_MATCH, etag));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/todos").header("Authorization", authorization).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void todoChange_movesTheETag_forTodosAndLists() throws Exception {
+        String todosETag = etagOf("/api/todos");
+        String listsETag = etagOf("/api/lists");
+
+        mockMvc.perform(patch("/api/todos/" + todo.getId() + "/done").header("Authorization", authorization))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/todos").header("Authorization", authorization).header(HttpHeaders.IF_NONE_MATCH, todosETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/lists").header("Authorization", authorization).header(HttpHeaders.IF_NONE_MATCH, listsETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listChange_movesTheETag() throws Exception {
+        String etag = etagOf("/api/lists?cursor=");
+
+        mockMvc.perform(post("/api/lists").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"new list\"}"))
+                .andExpect(status().isOk());
+
+        String changed = etagOf("/api/lists?cursor=");
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void pollDuringOpenBatch_doesNotKeepTheOldETagAfterCommit() throws Exception {
+        String etag = etagOf("/api/todos");
+        UserPrincipal principal = UserPrincipal.from(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            todoBatchService.apply(new TodoBatch(List.of(Todo.builder().text("batched").build()), null, null));
+            // Another request polls before the batch commits: it still sees (and may cache) the old version
+            int status = CompletableFuture.supplyAsync(() -> statusOfPoll(etag)).join();
+            assertEquals(304, status);
+        });
+
+        mockMvc.perform(get("/api/todos").header("Authorization", authorization).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private int statusOfPoll(String etag) {
+        try {
+            return mockMvc.perform(get("/api/todos").header("Authorization", authorization).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
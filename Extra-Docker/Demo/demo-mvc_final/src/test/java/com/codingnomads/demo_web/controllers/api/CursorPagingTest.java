@@ -0,0 +1,88 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoList;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CursorPagingTest extends ApiIntegrationTest {
+
+    List<Long> ownTodoIds;
+
+    @BeforeEach
+    void setUp() {
+        ownTodoIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ownTodoIds.add(todoRepository.save(Todo.builder().text("mine " + i).done(i % 2 == 0).user(user).build()).getId());
+            todoRepository.save(Todo.builder().text("theirs " + i).user(admin).build());
+        }
+        IntStream.range(0, 3).forEach(i -> {
+            todoListRepository.save(TodoList.builder().name("list " + i).user(user).build());
+            todoListRepository.save(TodoList.builder().name("other " + i).user(admin).build());
+        });
+    }
+
+    @Test
+    void todos_followingNextCursor_visitsEveryOwnTodoOnce_inIdOrder() throws Exception {
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            String body = mockMvc.perform(get("/api/todos").param("cursor", cursor).param("size", "3")
+                            .header("Authorization", authorization))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<String> ids = JsonPath.read(body, "$.content[*].id");
+            ids.forEach(id -> seen.add(Long.valueOf(id)));
+            cursor = JsonPath.read(body, "$.nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(ownTodoIds, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void todos_doneFilter_appliesAcrossPages() throws Exception {
+        String body = mockMvc.perform(get("/api/todos").param("cursor", "").param("done", "true").param("size", "3")
+                        .header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/todos").param("cursor", (String) JsonPath.read(body, "$.nextCursor"))
+                        .param("done", "true").param("size", "3")
+                        .header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].done").value(true))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void lists_arePagedByCursor_andScopedToCaller() throws Exception {
+        mockMvc.perform(get("/api/lists").param("cursor", "").param("size", "2")
+                        .header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("list 0"))
+                .andExpect(jsonPath("$.content[1].name").value("list 1"))
+                .andExpect(jsonPath("$.next").isString());
+    }
+
+    @Test
+    void malformedCursor_isBadRequest() throws Exception {
+        mockMvc.perform(get("/api/todos").param("cursor", "not-a-cursor")
+                        .header("Authorization", authorization))
+                .andExpect(status().isBadRequest());
+    }
+}
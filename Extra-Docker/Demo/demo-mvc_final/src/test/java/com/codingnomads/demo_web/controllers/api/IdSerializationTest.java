@@ -0,0 +1,44 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class IdSerializationTest extends ApiIntegrationTest {
+
+    @Test
+    void ids_roundTripAsStrings_withoutLosingPrecision() throws Exception {
+        String body = mockMvc.perform(post("/api/todos").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"text\":\"big id\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        Object id = JsonPath.read(body, "$.id");
+        assertInstanceOf(String.class, id);
+        Todo stored = todoRepository.findAll().get(0);
+        // A TSID is beyond 2^53, where a JavaScript number would round it
+        assertTrue(stored.getId() > (1L << 53));
+        assertEquals(String.valueOf(stored.getId()), id);
+
+        mockMvc.perform(get("/api/todos/" + id).header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id));
+
+        mockMvc.perform(patch("/api/todos/batch").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"update\":[{\"id\":\"" + id + "\",\"text\":\"renamed\",\"done\":true}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id))
+                .andExpect(jsonPath("$[0].status").value(200));
+
+        assertEquals("renamed", todoRepository.findById(stored.getId()).orElseThrow().getText());
+    }
+}
@@ -0,0 +1,146 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OptimisticConcurrencyTest extends ApiIntegrationTest {
+
+    Todo todo;
+
+    @BeforeEach
+    void setUp() {
+        todo = todoRepository.save(Todo.builder().text("edit me").user(user).build());
+    }
+
+    @Test
+    void update_withCurrentETag_appliesAndMovesTheETag() throws Exception {
+        String etag = etagOf("/api/todos/" + todo.getId());
+
+        String next = mockMvc.perform(put("/api/todos/" + todo.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"text\":\"mine\",\"done\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.text").value("mine"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(etag, next);
+        assertEquals(next, etagOf("/api/todos/" + todo.getId()));
+    }
+
+    @Test
+    void update_withStaleETag_is412_andLeavesTheTodo() throws Exception {
+        String etag = etagOf("/api/todos/" + todo.getId());
+        mockMvc.perform(patch("/api/todos/" + todo.getId() + "/done").header("Authorization", authorization))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/todos/" + todo.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"text\":\"lost update\",\"done\":false}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+
+        Todo stored = todoRepository.findById(todo.getId()).orElseThrow();
+        assertEquals("edit me", stored.getText());
+        assertTrue(stored.isDone());
+    }
+
+    @Test
+    void patchAndDelete_withStaleETag_are412() throws Exception {
+        String etag = etagOf("/api/todos/" + todo.getId());
+        mockMvc.perform(patch("/api/todos/" + todo.getId() + "/done").header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/todos/" + todo.getId() + "/undone").header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/todos/" + todo.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        assertTrue(todoRepository.existsById(todo.getId()));
+
+        mockMvc.perform(delete("/api/todos/" + todo.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etagOf("/api/todos/" + todo.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(String.valueOf(todo.getId())));
+        assertFalse(todoRepository.existsById(todo.getId()));
+    }
+
+    @Test
+    void conditionalWrite_toMissingTodo_is404() throws Exception {
+        mockMvc.perform(delete("/api/todos/" + (todo.getId() + 1)).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void withoutIfMatch_lastWriterStillWins() throws Exception {
+        String patchETag = mockMvc.perform(patch("/api/todos/" + todo.getId() + "/done").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.done").value(true))
+                .andExpect(jsonPath("$.version").isNumber())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(etagOf("/api/todos/" + todo.getId()), patchETag);
+        mockMvc.perform(put("/api/todos/" + todo.getId()).header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"text\":\"overwrite\",\"done\":false}"))
+                .andExpect(status().isOk());
+
+        assertEquals("overwrite", todoRepository.findById(todo.getId()).orElseThrow().getText());
+    }
+
+    @Test
+    void unconditionalPut_returnsTheNewVersionAndItsETag() throws Exception {
+        String todoETag = mockMvc.perform(put("/api/todos/" + todo.getId()).header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"text\":\"no precondition\",\"done\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").isNumber())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(etagOf("/api/todos/" + todo.getId()), todoETag);
+
+        TodoList list = todoListRepository.save(TodoList.builder().name("groceries").user(user).build());
+        String listETag = mockMvc.perform(put("/api/lists/" + list.getId()).header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"shopping\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").isNumber())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(etagOf("/api/lists/" + list.getId()), listETag);
+    }
+
+    @Test
+    void list_updateAndDelete_honourIfMatch() throws Exception {
+        TodoList list = todoListRepository.save(TodoList.builder().name("groceries").user(user).build());
+        String etag = etagOf("/api/lists/" + list.getId());
+
+        mockMvc.perform(put("/api/lists/" + list.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"shopping\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+
+        mockMvc.perform(put("/api/lists/" + list.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"stale\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/lists/" + list.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("shopping", todoListRepository.findById(list.getId()).orElseThrow().getName());
+
+        mockMvc.perform(delete("/api/lists/" + list.getId()).header("Authorization", authorization)
+                        .header(HttpHeaders.IF_MATCH, etagOf("/api/lists/" + list.getId())))
+                .andExpect(status().isOk());
+        assertFalse(todoListRepository.existsById(list.getId()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "todos.batch.max-size=6")
+class TodoBatchTest extends ApiIntegrationTest {
+
+    @Test
+    void post_createsAll_andReturnsIdsInRequestOrder() throws Exception {
+        String body = mockMvc.perform(post("/api/todos/batch")
+                        .header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"text\":\"a\"},{\"text\":\"b\",\"done\":true},{\"text\":\"c\"}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[*].status", everyIs(201)))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> ids = JsonPath.read(body, "$[*].id");
+        assertEquals(List.of("a", "b", "c"), ids.stream()
+                .map(id -> todoRepository.findByIdAndUser_Id(Long.valueOf(id), user.getId()).orElseThrow().getText())
+                .toList());
+        assertTrue(todoRepository.findByIdAndUser_Id(Long.valueOf(ids.get(1)), user.getId()).orElseThrow().isDone());
+    }
+
+    @Test
+    void patch_appliesEachItem_andReportsPerItemStatus() throws Exception {
+        Todo mine = todoRepository.save(Todo.builder().text("mine").user(user).build());
+        Todo gone = todoRepository.save(Todo.builder().text("gone").user(user).build());
+        Todo theirs = todoRepository.save(Todo.builder().text("theirs").user(admin).build());
+
+        mockMvc.perform(patch("/api/todos/batch")
+                        .header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"create": [{"text": "new"}],
+                                 "update": [{"id": %d, "text": "edited", "done": true}, {"id": %d, "text": "hijacked"}, {"text": "no id"}],
+                                 "delete": [%d, %d]}
+                                """.formatted(mine.getId(), theirs.getId(), gone.getId(), theirs.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].op").value("create"))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[2].status").value(404))
+                .andExpect(jsonPath("$[3].status").value(400))
+                .andExpect(jsonPath("$[4].op").value("delete"))
+                .andExpect(jsonPath("$[4].status").value(204))
+                .andExpect(jsonPath("$[5].status").value(404));
+
+        Todo edited = todoRepository.findById(mine.getId()).orElseThrow();
+        assertEquals("edited", edited.getText());
+        assertTrue(edited.isDone());
+        assertFalse(todoRepository.existsById(gone.getId()));
+        assertEquals("theirs", todoRepository.findById(theirs.getId()).orElseThrow().getText());
+    }
+
+    @Test
+    void oversizedBatch_isBadRequest_andWritesNothing() throws Exception {
+        mockMvc.perform(post("/api/todos/batch")
+                        .header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"text\":\"1\"},{\"text\":\"2\"},{\"text\":\"3\"},{\"text\":\"4\"},{\"text\":\"5\"},{\"text\":\"6\"},{\"text\":\"7\"}]"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, todoRepository.count());
+    }
+
+    private static org.hamcrest.Matcher<Iterable<? extends Integer>> everyIs(int status) {
+        return org.hamcrest.Matchers.everyItem(org.hamcrest.Matchers.is(status));
+    }
+}
@@ -1,18 +1,29 @@
 package com.codingnomads.demo_web.controllers.api;
 
 import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoStats;
+import com.codingnomads.demo_web.services.TodoBatchService;
+import com.codingnomads.demo_web.services.TodoDataVersionService;
+import com.codingnomads.demo_web.services.TodoSearchService;
 import com.codingnomads.demo_web.services.TodoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.security.test.context.support.WithMockUser;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -24,6 +35,15 @@ class TodoControllerTest {
     @MockitoBean
     TodoService todoService;
 
+    @MockitoBean
+    TodoBatchService todoBatchService;
+
+    @MockitoBean
+    TodoDataVersionService todoDataVersionService;
+
+    @MockitoBean
+    TodoSearchService todoSearchService;
+
     @Autowired
     MockMvc mockMvc;
 
@@ -40,23 +60,43 @@ class TodoControllerTest {
     @WithMockUser
     void gatAll_success() throws Exception {
         // Given
-        when(todoService.getAllTodos(null)).thenReturn(todos);
+        when(todoService.getTodos(eq(null), any(Pageable.class)))
+                .thenAnswer(inv -> new PageImpl<>(todos, inv.getArgument(1), todos.size()));
 
         // When
         mockMvc.perform(get("/api/todos")).
                 // Then
                 andExpect(status().isOk()).
-                andExpect(jsonPath("$[0].id").value(1)).
-                andExpect(jsonPath("$[0].done").value(false));
+                andExpect(jsonPath("$.content[0].id").value("1")).
+                andExpect(jsonPath("$.content[0].done").value(false)).
+                andExpect(jsonPath("$.totalElements").value(2)).
+                andExpect(jsonPath("$.next").doesNotExist());
+
+        verify(todoService, times(1)).getTodos(null, PageRequest.of(0, 20, Sort.by("id")));
+    }
+
+    @Test
+    @WithMockUser
+    void getPage_linksNextPage_andCapsSize() throws Exception {
+        when(todoService.getTodos(eq(true), any(Pageable.class)))
+                .thenAnswer(inv -> new PageImpl<>(todos, inv.getArgument(1), 250));
+
+        mockMvc.perform(get("/api/todos?done=true&size=500&sort=text,desc")).
+                andExpect(status().isOk()).
+                andExpect(jsonPath("$.page").value(0)).
+                andExpect(jsonPath("$.size").value(100)).
+                andExpect(jsonPath("$.totalPages").value(3)).
+                andExpect(jsonPath("$.next").value("http://localhost/api/todos?done=true&sort=text,desc&page=1&size=100"));
 
-        verify(todoService, times(1)).getAllTodos(null);
+        verify(todoService, times(1)).getTodos(true,
+                PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "text").and(Sort.by("id"))));
     }
 
     @Test
     @WithMockUser
     void count_success() throws Exception {
         // Given
-        when(todoService.getAllTodos(null)).thenReturn(todos);
+        when(todoService.getStats()).thenReturn(new TodoStats(2, 1, 1, Map.of(), 2));
 
         // When
         mockMvc.perform(get("/api/todos").header("X-Param", "Count")).
@@ -65,6 +105,7 @@ class TodoControllerTest {
                 andExpect(jsonPath("$").isNumber()).
                 andExpect(jsonPath("$").value(2));
 
-        verify(todoService, times(1)).getAllTodos(null);
+        verify(todoService, times(1)).getStats();
+        verify(todoService, never()).getAllTodos(any());
     }
 }
@@ -0,0 +1,73 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TodoSearchTest extends ApiIntegrationTest {
+
+    @Test
+    void search_ranksTodosMatchingMoreTerms_first() throws Exception {
+        todoRepository.saveAll(List.of(
+                Todo.builder().text("Buy milk").user(user).build(),
+                Todo.builder().text("Water the plants").user(user).build(),
+                Todo.builder().text("Buy oat milk for the office").user(user).build(),
+                Todo.builder().text("Office party").user(user).build()));
+
+        mockMvc.perform(get("/api/todos/search?q=office milk").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].text", contains("Buy oat milk for the office", "Buy milk", "Office party")))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    void search_onlyFindsTheCallersTodos() throws Exception {
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        todoRepository.saveAll(List.of(
+                Todo.builder().text("Renew passport").user(user).build(),
+                Todo.builder().text("Renew admin passport").user(admin).build()));
+
+        mockMvc.perform(get("/api/todos/search?q=passport").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].text", contains("Renew passport")));
+    }
+
+    @Test
+    void search_isPaged() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            todoRepository.save(Todo.builder().text("Call client " + i).user(user).build());
+        }
+
+        mockMvc.perform(get("/api/todos/search?q=client&size=2").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.next", endsWith("/api/todos/search?q=client&page=1&size=2")));
+
+        mockMvc.perform(get("/api/todos/search?q=client&size=2&page=2").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].text", contains("Call client 4")))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    void search_withoutWords_findsNothing() throws Exception {
+        todoRepository.save(Todo.builder().text("100% done").user(user).build());
+
+        mockMvc.perform(get("/api/todos/search?q=%25").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+        mockMvc.perform(get("/api/todos/search").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoList;
+import com.codingnomads.demo_web.services.TodoStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TodoStatsTest extends ApiIntegrationTest {
+
+    @Autowired
+    TodoStatsService todoStatsService;
+
+    TodoList work;
+    Todo openUnlisted;
+
+    @BeforeEach
+    void setUp() {
+        todoStatsService.invalidate(user.getId());
+        work = todoListRepository.save(TodoList.builder().name("work").user(user).build());
+        Todo a = todoRepository.save(Todo.builder().text("a").done(true).user(user).build());
+        Todo b = todoRepository.save(Todo.builder().text("b").user(user).build());
+        todoRepository.assignToList(a.getId(), work.getId(), user.getId());
+        todoRepository.assignToList(b.getId(), work.getId(), user.getId());
+        openUnlisted = todoRepository.save(Todo.builder().text("c").user(user).build());
+        todoRepository.save(Todo.builder().text("theirs").done(true).user(admin).build());
+    }
+
+    @Test
+    void stats_countOnlyCallersTodos() throws Exception {
+        mockMvc.perform(get("/api/todos/stats").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.done").value(1))
+                .andExpect(jsonPath("$.open").value(2))
+                .andExpect(jsonPath("$.perList['" + work.getId() + "']").value(2))
+                .andExpect(jsonPath("$.unlisted").value(1));
+
+        mockMvc.perform(get("/api/todos").header("X-Param", "Count").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(3));
+    }
+
+    @Test
+    void stats_areCached_untilATodoChangesThroughTheApi() throws Exception {
+        mockMvc.perform(get("/api/todos/stats").header("Authorization", authorization))
+                .andExpect(jsonPath("$.total").value(3));
+
+        // Written behind the service's back: not visible until the entry is evicted
+        todoRepository.save(Todo.builder().text("d").user(user).build());
+        mockMvc.perform(get("/api/todos/stats").header("Authorization", authorization))
+                .andExpect(jsonPath("$.total").value(3));
+
+        mockMvc.perform(patch("/api/todos/" + openUnlisted.getId() + "/done").header("Authorization", authorization))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/todos/stats").header("Authorization", authorization))
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.done").value(2))
+                .andExpect(jsonPath("$.unlisted").value(2));
+    }
+}
@@ -0,0 +1,153 @@
+package com.codingnomads.demo_web.controllers.api;
+
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.codingnomads.demo_web.services.ApiTokenService;
+import com.codingnomads.demo_web.services.JwtService;
+import com.codingnomads.demo_web.services.TokenDigest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class TokenControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ApiTokenService apiTokenService;
+
+    @Autowired
+    ApiTokenRepository apiTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    UserPrincipal user;
+    UserPrincipal admin;
+    ApiToken session;
+    String accessToken;
+
+    @BeforeEach
+    void setUp() {
+        apiTokenRepository.deleteAll();
+        user = UserPrincipal.from(userRepository.findByUsername("user").orElseThrow());
+        admin = UserPrincipal.from(userRepository.findByUsername("admin").orElseThrow());
+        // The token the test client is "logged in" with; kept out of the bulk operations below by issuing it last
+        session = apiTokenService.generate(user, Duration.ofHours(1));
+        accessToken = jwtService.issueAccessToken(user, session.getJti(), session.getExpiresAt()).token();
+    }
+
+    @AfterEach
+    void tearDown() {
+        apiTokenRepository.deleteAll();
+    }
+
+    @Test
+    void index_listsOnlyOwnTokens_paged() throws Exception {
+        apiTokenService.generate(user, Duration.ofHours(1));
+        apiTokenService.generate(admin, Duration.ofHours(1));
+
+        mockMvc.perform(get("/api/tokens").param("size", "1").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].token").doesNotExist())
+                .andExpect(jsonPath("$.page.totalElements").value(2));
+    }
+
+    @Test
+    void revoke_otherUsersToken_isNotFound() throws Exception {
+        ApiToken adminToken = apiTokenService.generate(admin, Duration.ofHours(1));
+
+        mockMvc.perform(post("/api/tokens/" + adminToken.getId() + "/revoke").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/tokens/" + adminToken.getId()).header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isNotFound());
+
+        assertFalse(apiTokenRepository.findById(adminToken.getId()).orElseThrow().isRevoked());
+    }
+
+    @Test
+    void revokeBefore_onlyTouchesOwnOlderTokens() throws Exception {
+        ApiToken old = save(user, Instant.now().minus(Duration.ofHours(2)), Instant.now().plus(Duration.ofHours(1)));
+        ApiToken adminOld = save(admin, Instant.now().minus(Duration.ofHours(2)), Instant.now().plus(Duration.ofHours(1)));
+
+        mockMvc.perform(post("/api/tokens/revoke-before")
+                        .param("before", Instant.now().minus(Duration.ofHours(1)).toString())
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        assertTrue(apiTokenRepository.findById(old.getId()).orElseThrow().isRevoked());
+        assertFalse(apiTokenRepository.findById(adminOld.getId()).orElseThrow().isRevoked());
+        assertFalse(apiTokenRepository.findById(session.getId()).orElseThrow().isRevoked());
+    }
+
+    @Test
+    void deleteExpired_removesOnlyOwnExpiredTokens() throws Exception {
+        ApiToken expired = save(user, Instant.now().minus(Duration.ofHours(3)), Instant.now().minus(Duration.ofHours(1)));
+        ApiToken adminExpired = save(admin, Instant.now().minus(Duration.ofHours(3)), Instant.now().minus(Duration.ofHours(1)));
+
+        mockMvc.perform(delete("/api/tokens/expired").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        assertTrue(apiTokenRepository.findById(expired.getId()).isEmpty());
+        assertTrue(apiTokenRepository.findById(adminExpired.getId()).isPresent());
+    }
+
+    @Test
+    void revokeAll_revokesCallersTokens_includingTheOneInUse() throws Exception {
+        apiTokenService.generate(user, Duration.ofHours(1));
+        ApiToken adminToken = apiTokenService.generate(admin, Duration.ofHours(1));
+
+        mockMvc.perform(post("/api/tokens/revoke-all").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+
+        assertFalse(apiTokenRepository.findById(adminToken.getId()).orElseThrow().isRevoked());
+        mockMvc.perform(get("/api/tokens").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private ApiToken save(UserPrincipal owner, Instant issuedAt, Instant expiresAt) {
+        String jti = UUID.randomUUID().toString();
+        User reference = userRepository.getReferenceById(owner.id());
+        return apiTokenRepository.save(ApiToken.builder()
+                .user(reference)
+                .tokenHash(TokenDigest.sha256(jti))
+                .jti(jti)
+                .issuedAt(issuedAt)
+                .expiresAt(expiresAt)
+                .revoked(false)
+                .build());
+    }
+}
@@ -0,0 +1,134 @@
+package com.codingnomads.demo_web.controllers.pages;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.TodoList;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.repositories.TodoListRepository;
+import com.codingnomads.demo_web.repositories.TodoRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class TodosPageControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TodoRepository todoRepository;
+
+    @Autowired
+    TodoListRepository todoListRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    User user;
+    Cookie session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = userRepository.findByUsername("user").orElseThrow();
+        session = mockMvc.perform(formLogin("/login").user("user").password("user"))
+                .andReturn().getResponse().getCookie("SESSION");
+        assertNotNull(session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        todoRepository.deleteAll();
+        todoListRepository.deleteAll();
+    }
+
+    @Test
+    void todosPage_rendersListsAndUnlisted_withDoneFilterApplied() throws Exception {
+        TodoList work = todoListRepository.save(TodoList.builder().name("Work").user(user).build());
+        Todo report = todoRepository.save(Todo.builder().text("Write report").user(user).build());
+        todoRepository.assignToList(report.getId(), work.getId(), user.getId());
+        todoRepository.save(Todo.builder().text("Buy milk").done(true).user(user).build());
+
+        mockMvc.perform(get("/todos").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Work")))
+                .andExpect(content().string(containsString("Write report")))
+                .andExpect(content().string(containsString("Buy milk")));
+
+        mockMvc.perform(get("/todos").param("filter", "open").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Write report")))
+                .andExpect(content().string(not(containsString("Buy milk"))));
+    }
+
+    @Test
+    void todosPage_withQuery_showsMatchingTodosOnly() throws Exception {
+        todoRepository.save(Todo.builder().text("Write report").user(user).build());
+        todoRepository.save(Todo.builder().text("Buy milk").user(user).build());
+
+        mockMvc.perform(get("/todos").param("q", "report").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Write report")))
+                .andExpect(content().string(not(containsString("Buy milk"))));
+    }
+
+    @Test
+    void todosPage_queryCount_doesNotGrowWithLists() throws Exception {
+        long fewLists = statementsForPageWith(1);
+        long manyLists = statementsForPageWith(8);
+
+        assertEquals(2, fewLists);
+        assertEquals(fewLists, manyLists);
+    }
+
+    @Test
+    void toggle_flipsDoneInPlace() throws Exception {
+        Todo todo = todoRepository.save(Todo.builder().text("flip me").user(user).build());
+
+        for (boolean expected : new boolean[]{true, false}) {
+            mockMvc.perform(post("/todos/" + todo.getId() + "/toggle").with(csrf()).cookie(session))
+                    .andExpect(status().is3xxRedirection());
+            assertEquals(expected, todoRepository.findById(todo.getId()).orElseThrow().isDone());
+        }
+    }
+
+    private long statementsForPageWith(int lists) throws Exception {
+        for (int i = 0; i < lists; i++) {
+            TodoList list = todoListRepository.save(TodoList.builder().name("list " + i).user(user).build());
+            Todo todo = todoRepository.save(Todo.builder().text("todo " + i).user(user).build());
+            todoRepository.assignToList(todo.getId(), list.getId(), user.getId());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/todos").cookie(session)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,69 @@
+package com.codingnomads.demo_web.ids;
+
+import com.codingnomads.demo_web.models.Todo;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.repositories.TodoRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TsidGeneratorTest {
+
+    @Autowired
+    TodoRepository todoRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        todoRepository.deleteAll();
+    }
+
+    @Test
+    void saveAll_assignsIncreasingTimeSortedIds_andInsertsInOneBatch() {
+        User user = userRepository.findByUsername("user").orElseThrow();
+        List<Todo> todos = IntStream.range(0, 20)
+                .mapToObj(i -> Todo.builder().text("todo " + i).user(user).build())
+                .toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Todo> saved = transactionTemplate.execute(status -> todoRepository.saveAll(todos));
+
+        // With IDENTITY every INSERT would be its own statement
+        assertEquals(1, statistics.getPrepareStatementCount());
+        for (int i = 1; i < saved.size(); i++) {
+            assertTrue(saved.get(i).getId() > saved.get(i - 1).getId());
+        }
+        Instant created = Tsid.instantOf(saved.get(0).getId());
+        assertTrue(Duration.between(created, Instant.now()).abs().toSeconds() < 5);
+        assertEquals(20, todoRepository.findAllByUser_Id(user.getId()).size());
+    }
+}
@@ -0,0 +1,72 @@
+package com.codingnomads.demo_web.ids;
+
+import com.codingnomads.demo_web.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TsidTest {
+
+    static final Instant NOW = Instant.parse("2026-10-17T12:00:00.123Z");
+
+    @Test
+    void generate_encodesTimeAndNode() {
+        long id = new Tsid(513, Clock.fixed(NOW, ZoneOffset.UTC)).generate();
+
+        assertTrue(id > 0);
+        assertEquals(NOW, Tsid.instantOf(id));
+        assertEquals(513, (id >>> Tsid.COUNTER_BITS) & Tsid.MAX_NODE);
+    }
+
+    @Test
+    void generate_isUniqueAndIncreasing_evenWhenTheCounterOverflows() {
+        // A frozen clock forces every id into the same millisecond
+        Tsid tsid = new Tsid(1, Clock.fixed(NOW, ZoneOffset.UTC));
+        Set<Long> seen = new HashSet<>();
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = tsid.generate();
+            assertTrue(id > previous);
+            assertTrue(seen.add(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void generate_staysIncreasing_whenTheClockGoesBack() {
+        MutableClock clock = new MutableClock(NOW);
+        Tsid tsid = new Tsid(1, clock);
+        long before = tsid.generate();
+
+        clock.set(NOW.minusSeconds(5));
+
+        assertTrue(tsid.generate() > before);
+    }
+
+    @Test
+    void differentNodes_neverCollide_inTheSameMillisecond() {
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        assertNotEquals(new Tsid(1, clock).generate(), new Tsid(2, clock).generate());
+    }
+
+    @Test
+    void node_mustFitItsBits() {
+        Clock clock = Clock.systemUTC();
+        assertThrows(IllegalArgumentException.class, () -> new Tsid(1024, clock));
+        assertThrows(IllegalArgumentException.class, () -> new Tsid(-1, clock));
+    }
+
+    @Test
+    void nodeFromAddress_usesTheLowTenBits() {
+        assertEquals(0x105, Tsid.nodeFromAddress(new byte[]{(byte) 172, 18, 1, 5}));
+        assertEquals(Tsid.MAX_NODE, Tsid.nodeFromAddress(new byte[]{10, 0, (byte) 255, (byte) 255}));
+        assertNotEquals(Tsid.nodeFromAddress(new byte[]{(byte) 172, 18, 0, 2}),
+                Tsid.nodeFromAddress(new byte[]{(byte) 172, 18, 0, 3}));
+    }
+}
@@ -0,0 +1,115 @@
+package com.codingnomads.demo_web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiRateLimiterTest {
+
+    AtomicLong clock = new AtomicLong(1_000_000_000L);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ApiRateLimiter limiter = new ApiRateLimiter(meterRegistry, true,
+            ApiRateLimiter.Limit.parse("3/PT3S"),
+            ApiRateLimiter.Limit.parse("2/PT2S"),
+            ApiRateLimiter.Limit.parse("5/PT5S"),
+            ApiRateLimiter.parseRoles("ROLE_USER:5/PT5S,ROLE_ADMIN:100/PT5S"),
+            clock::get);
+
+    @Test
+    void tokenBucket_allowsBurstThenRejectsWithRetryAfter() {
+        for (int i = 2; i >= 0; i--) {
+            ApiRateLimiter.Decision d = limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER"));
+            assertTrue(d.allowed());
+            assertEquals(i, d.remaining());
+        }
+
+        ApiRateLimiter.Decision rejected = limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER"));
+
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertEquals(1, rejected.retryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("api.rate-limit.rejected").counter().count());
+    }
+
+    @Test
+    void tokenBucket_refillsOverTime() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER"));
+        }
+        assertFalse(limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER")).allowed());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertTrue(limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER")).allowed());
+    }
+
+    @Test
+    void userBucket_isSharedAcrossTokens() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("jti-" + i, 1L, List.of("ROLE_USER")).allowed());
+        }
+
+        assertFalse(limiter.tryAcquire("jti-new", 1L, List.of("ROLE_USER")).allowed());
+        assertTrue(limiter.tryAcquire("jti-other", 2L, List.of("ROLE_USER")).allowed());
+    }
+
+    @Test
+    void userBucketRejection_leavesTokenBucketUntouched() {
+        assertEquals(2, limiter.tryAcquire("jti-a", 1L, List.of("ROLE_USER")).remaining());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire("jti-" + i, 1L, List.of("ROLE_USER")).allowed());
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(limiter.tryAcquire("jti-a", 1L, List.of("ROLE_USER")).allowed());
+        }
+
+        // Still 2 left in the token's bucket; taking one leaves 1
+        assertEquals(1, limiter.tryAcquire("t:jti-a", ApiRateLimiter.Limit.parse("3/PT3S")).remaining());
+    }
+
+    @Test
+    void refreshBucket_isPerClientAddress() {
+        assertTrue(limiter.tryAcquireRefresh("203.0.113.7").allowed());
+        assertTrue(limiter.tryAcquireRefresh("203.0.113.7").allowed());
+        ApiRateLimiter.Decision rejected = limiter.tryAcquireRefresh("203.0.113.7");
+        assertFalse(rejected.allowed());
+        assertEquals(1, rejected.retryAfterSeconds());
+
+        assertTrue(limiter.tryAcquireRefresh("198.51.100.1").allowed());
+        assertEquals(1.0, meterRegistry.counter("api.rate-limit.rejected").count());
+    }
+
+    @Test
+    void userLimit_mostGenerousRoleWins() {
+        assertEquals(100, limiter.userLimit(List.of("ROLE_USER", "ROLE_ADMIN")).capacity());
+        assertEquals(5, limiter.userLimit(List.of("ROLE_OTHER")).capacity());
+    }
+
+    @Test
+    void sweep_dropsRefilledBuckets() {
+        limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER"));
+        limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER"));
+        limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER"));
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        limiter.sweep();
+
+        // A fresh bucket again offers the full burst
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("jti-1", 1L, List.of("ROLE_USER")).allowed());
+        }
+    }
+
+    @Test
+    void parse_rejectsMalformedLimits() {
+        assertThrows(IllegalArgumentException.class, () -> ApiRateLimiter.Limit.parse("10"));
+        assertThrows(IllegalArgumentException.class, () -> ApiRateLimiter.Limit.parse("0/PT1M"));
+        assertThrows(IllegalArgumentException.class, () -> ApiRateLimiter.parseRoles("ROLE_USER=1/PT1M"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ApiTokenPurgeServiceTest {
+
+    @Autowired
+    ApiTokenPurgeService purgeService;
+
+    @Autowired
+    ApiTokenRepository apiTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void purge_deletesOnlyTokensExpiredBeforeCutoff() {
+        User user = userRepository.findByUsername("user").orElseThrow();
+        Instant now = Instant.now();
+        ApiToken live = save(user, now.plusSeconds(3600), false);
+        save(user, now.minusSeconds(3600), false);
+        save(user, now.minusSeconds(7200), true);
+        save(user, now.minusSeconds(60), false);
+
+        long purged = purgeService.purge(now);
+
+        assertEquals(3, purged);
+        assertTrue(apiTokenRepository.findById(live.getId()).isPresent());
+        apiTokenRepository.deleteById(live.getId());
+    }
+
+    private ApiToken save(User user, Instant expiresAt, boolean revoked) {
+        String jti = UUID.randomUUID().toString();
+        return apiTokenRepository.save(ApiToken.builder()
+                .user(user)
+                .tokenHash(TokenDigest.sha256(jti))
+                .jti(jti)
+                .issuedAt(expiresAt.minusSeconds(86400))
+                .expiresAt(expiresAt)
+                .revoked(revoked)
+                .revokedAt(revoked ? expiresAt.minusSeconds(60) : null)
+                .build());
+    }
+}
@@ -0,0 +1,56 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.ApiToken;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ApiTokenUsageTrackerTest {
+
+    @Autowired
+    ApiTokenUsageTracker usageTracker;
+
+    @Autowired
+    ApiTokenService apiTokenService;
+
+    @Autowired
+    ApiTokenRepository apiTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void flush_writesAccumulatedUsesInOneBatch() {
+        User user = userRepository.findByUsername("user").orElseThrow();
+        ApiToken token = apiTokenService.generate(UserPrincipal.from(user), Duration.ofHours(1));
+
+        usageTracker.record(token.getJti());
+        usageTracker.record(token.getJti());
+        usageTracker.record(token.getJti());
+        usageTracker.flush();
+
+        ApiToken stored = apiTokenRepository.findById(token.getId()).orElseThrow();
+        assertEquals(3, stored.getUseCount());
+        assertNotNull(stored.getLastUsedAt());
+
+        usageTracker.record(token.getJti());
+        usageTracker.flush();
+        assertEquals(4, apiTokenRepository.findById(token.getId()).orElseThrow().getUseCount());
+
+        apiTokenRepository.deleteById(token.getId());
+    }
+}
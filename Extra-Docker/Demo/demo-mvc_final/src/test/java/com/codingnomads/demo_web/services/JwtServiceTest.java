@@ -0,0 +1,94 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    static final String OLD_SECRET = "old-secret-old-secret-old-secret-old-secret";
+    static final String NEW_SECRET = "new-secret-new-secret-new-secret-new-secret";
+
+    @Test
+    void issue_returnsMetadataMatchingClaims() {
+        JwtService jwtService = new JwtService(new JwtKeyRing("k1", OLD_SECRET, Map.of()), 24);
+
+        JwtService.IssuedToken issued = jwtService.issue("u", Duration.ofHours(1));
+        Claims claims = jwtService.parseAndValidate(issued.token());
+
+        assertEquals(issued.jti(), claims.getId());
+        assertEquals(issued.issuedAt(), claims.getIssuedAt().toInstant());
+        assertEquals(issued.expiresAt(), claims.getExpiration().toInstant());
+    }
+
+    @Test
+    void rotatedKey_stillVerifiesTokensOfRetiredKey() {
+        JwtService before = new JwtService(new JwtKeyRing("k1", OLD_SECRET, Map.of()), 24);
+        String oldToken = before.generateToken("u", Duration.ofHours(1));
+
+        JwtService after = new JwtService(new JwtKeyRing("k2", NEW_SECRET, Map.of("k1", OLD_SECRET)), 24);
+
+        assertEquals("u", after.extractUsername(oldToken));
+        assertEquals("u", after.extractUsername(after.generateToken("u", Duration.ofHours(1))));
+    }
+
+    @Test
+    void droppedKey_rejectsItsTokens() {
+        JwtService before = new JwtService(new JwtKeyRing("k1", OLD_SECRET, Map.of()), 24);
+        String oldToken = before.generateToken("u", Duration.ofHours(1));
+
+        JwtService after = new JwtService(new JwtKeyRing("k2", NEW_SECRET, Map.of()), 24);
+
+        assertThrows(JwtException.class, () -> after.parseAndValidate(oldToken));
+    }
+
+    @Test
+    void parseSecrets_readsKidSecretPairs() {
+        assertEquals(Map.of("k1", "a:b", "k2", "c"), JwtKeyRing.parseSecrets("k1:a:b, k2:c"));
+        assertTrue(JwtKeyRing.parseSecrets("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> JwtKeyRing.parseSecrets("nokid"));
+    }
+
+    @Test
+    void accessToken_carriesPrincipal() {
+        JwtService jwtService = new JwtService(new JwtKeyRing("k1", OLD_SECRET, Map.of()), 24, Duration.ofMinutes(10));
+        UserPrincipal principal = new UserPrincipal(7L, "u", true, true, true, Set.of("ROLE_USER", "ROLE_ADMIN"));
+
+        JwtService.IssuedToken issued = jwtService.issueAccessToken(principal, "refresh-jti", Instant.now().plus(Duration.ofHours(1)));
+        Claims claims = jwtService.parseAndValidate(issued.token());
+
+        assertEquals(JwtService.TYP_ACCESS, claims.get("typ"));
+        assertEquals("refresh-jti", claims.get(JwtService.CLAIM_REFRESH_ID, String.class));
+        assertEquals(Duration.ofMinutes(10), Duration.between(issued.issuedAt(), issued.expiresAt()));
+        UserPrincipal restored = jwtService.principalOf(claims);
+        assertEquals(7L, restored.id());
+        assertEquals("u", restored.username());
+        assertEquals(principal.authorities(), restored.authorities());
+    }
+
+    @Test
+    void accessToken_neverOutlivesRefreshToken() {
+        JwtService jwtService = new JwtService(new JwtKeyRing("k1", OLD_SECRET, Map.of()), 24, Duration.ofMinutes(15));
+        UserPrincipal principal = new UserPrincipal(7L, "u", true, true, true, Set.of("ROLE_USER"));
+        Instant refreshExpiresAt = Instant.now().plus(Duration.ofMinutes(2)).truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
+
+        JwtService.IssuedToken issued = jwtService.issueAccessToken(principal, "refresh-jti", refreshExpiresAt);
+
+        assertEquals(refreshExpiresAt, issued.expiresAt());
+    }
+
+    @Test
+    void accessTtl_outsideAllowedRange_isRejected() {
+        JwtKeyRing keyRing = new JwtKeyRing("k1", OLD_SECRET, Map.of());
+        assertThrows(IllegalArgumentException.class, () -> new JwtService(keyRing, 24, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new JwtService(keyRing, 24, Duration.ofHours(1)));
+    }
+}
@@ -1,7 +1,8 @@
 package com.codingnomads.demo_web.services;
 
+import com.codingnomads.demo_web.exceptions.TodoNotFoundException;
 import com.codingnomads.demo_web.models.Todo;
-import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
 import com.codingnomads.demo_web.repositories.TodoRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,10 +10,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +30,12 @@ class TodoServiceTest {
     @Mock
     UserService userService;
 
+    @Mock
+    TodoStatsService todoStatsService;
+
+    @Mock
+    TodoDataVersionService todoDataVersionService;
+
     @InjectMocks
     TodoService todoService;
 
@@ -35,9 +47,9 @@ class TodoServiceTest {
     @Test
     void getAllTodos_null() {
         // Given
-        User user = User.builder().id(1L).username("u").build();
+        UserPrincipal user = principal(1L);
         when(userService.getCurrentUser()).thenReturn(user);
-        when(todoRepository.findAllByUser(user)).thenReturn(todos);
+        when(todoRepository.findAllByUser_Id(user.id())).thenReturn(todos);
 
         // When
         List<Todo> result = todoService.getAllTodos(null);
@@ -46,43 +58,114 @@ class TodoServiceTest {
         assertNotNull(result);
         assertEquals(2, result.size());
 
-        verify(todoRepository, times(1)).findAllByUser(user);
+        verify(todoRepository, times(1)).findAllByUser_Id(user.id());
     }
 
     @Test
     void getAllTodos_true() {
-        User user = User.builder().id(1L).username("u").build();
+        UserPrincipal user = principal(1L);
         when(userService.getCurrentUser()).thenReturn(user);
-        when(todoRepository.findAllByUser(user)).thenReturn(todos);
+        when(todoRepository.findAllByUser_IdAndDone(user.id(), true)).thenReturn(todos.stream().filter(t -> t.isDone() == true).toList());
 
         List<Todo> result = todoService.getAllTodos(true);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(todoRepository, times(1)).findAllByUser(user);
+        verify(todoRepository, times(1)).findAllByUser_IdAndDone(user.id(), true);
+        verify(todoRepository, never()).findAllByUser_Id(user.id());
     }
 
     @Test
     void getAllTodos_false() {
-        User user = User.builder().id(1L).username("u").build();
+        UserPrincipal user = principal(1L);
         when(userService.getCurrentUser()).thenReturn(user);
-        when(todoRepository.findAllByUser(user)).thenReturn(todos);
+        when(todoRepository.findAllByUser_IdAndDone(user.id(), false)).thenReturn(todos.stream().filter(t -> t.isDone() == false).toList());
 
         List<Todo> result = todoService.getAllTodos(false);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(todoRepository, times(1)).findAllByUser(user);
+        verify(todoRepository, times(1)).findAllByUser_IdAndDone(user.id(), false);
+        verify(todoRepository, never()).findAllByUser_Id(user.id());
+    }
+
+    @Test
+    void getTodos_filtersInRepository() {
+        UserPrincipal user = principal(1L);
+        Pageable pageable = PageRequest.of(1, 10);
+        when(userService.getCurrentUser()).thenReturn(user);
+        when(todoRepository.findAllByUser_IdAndDone(user.id(), true, pageable)).thenReturn(Page.empty(pageable));
+
+        Page<Todo> result = todoService.getTodos(true, pageable);
+
+        assertEquals(1, result.getNumber());
+        verify(todoRepository, times(1)).findAllByUser_IdAndDone(user.id(), true, pageable);
+    }
+
+    @Test
+    void toggleDone_isOneOwnershipScopedUpdate() {
+        UserPrincipal user = principal(1L);
+        when(userService.getCurrentUser()).thenReturn(user);
+        when(todoRepository.toggleDone(5L, user.id())).thenReturn(1);
+
+        todoService.toggleDone(5L);
+
+        verify(todoRepository, times(1)).toggleDone(5L, user.id());
+        verify(todoRepository, never()).findByIdAndUser_Id(any(), any());
+        verify(todoStatsService, times(1)).invalidate(user.id());
+    }
+
+    @Test
+    void setDone_notFound_whenNoRowIsAffected() {
+        UserPrincipal user = principal(1L);
+        when(userService.getCurrentUser()).thenReturn(user);
+        when(todoRepository.setDone(5L, user.id(), true)).thenReturn(0);
+
+        assertThrows(TodoNotFoundException.class, () -> todoService.setDone(5L, true));
+        verify(todoStatsService, never()).invalidate(any());
+    }
+
+    @Test
+    void updateTodo_returnsTheWrittenValues_withoutReadingBack() {
+        UserPrincipal user = principal(1L);
+        when(userService.getCurrentUser()).thenReturn(user);
+        when(todoRepository.updateTextAndDone(5L, user.id(), "renamed", true)).thenReturn(1);
+        when(todoRepository.lastWrittenVersion()).thenReturn(3L);
+
+        Todo result = todoService.updateTodo(5L, Todo.builder().text("renamed").done(true).build());
+
+        assertEquals(5L, result.getId());
+        assertEquals("renamed", result.getText());
+        assertTrue(result.isDone());
+        assertEquals(3L, result.getVersion());
+        verify(todoRepository, never()).findByIdAndUser_Id(any(), any());
+        verify(todoRepository, never()).save(any());
+    }
+
+    @Test
+    void deleteTodo_isOneOwnershipScopedDelete() {
+        UserPrincipal user = principal(1L);
+        when(userService.getCurrentUser()).thenReturn(user);
+        when(todoRepository.deleteOwned(5L, user.id())).thenReturn(1);
+
+        todoService.deleteTodo(5L);
+
+        verify(todoRepository, times(1)).deleteOwned(5L, user.id());
+        verify(todoRepository, never()).deleteById(any());
     }
 
     @Test
     void getTodosWithoutList_exception() {
-        User user = User.builder().id(42L).username("u").build();
+        UserPrincipal user = principal(42L);
         when(userService.getCurrentUser()).thenReturn(user);
-        when(todoRepository.findAllByUserIdAndNoList(user.getId())).thenThrow(new RuntimeException());
+        when(todoRepository.findAllByUserIdAndNoList(user.id())).thenThrow(new RuntimeException());
 
         assertThrows(RuntimeException.class, () -> todoService.getTodosWithoutList());
 
-        verify(todoRepository, times(1)).findAllByUserIdAndNoList(user.getId());
+        verify(todoRepository, times(1)).findAllByUserIdAndNoList(user.id());
+    }
+
+    private static UserPrincipal principal(Long id) {
+        return new UserPrincipal(id, "u", true, true, true, Set.of("ROLE_USER"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.MutableClock;
+import com.codingnomads.demo_web.repositories.ApiTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationIndexTest {
+
+    @Mock
+    ApiTokenRepository apiTokenRepository;
+
+    MutableClock clock = new MutableClock(Instant.parse("2026-10-17T12:00:00Z"));
+
+    record Revoked(String getJti, Instant getExpiresAt) implements ApiTokenRepository.RevokedToken {
+    }
+
+    @Test
+    void load_thenPoll_picksUpRevocationsFromOtherNodes() {
+        when(apiTokenRepository.findByRevokedTrueAndExpiresAtAfter(any()))
+                .thenReturn(List.of(new Revoked("a", clock.instant().plusSeconds(60))));
+        when(apiTokenRepository.findByRevokedTrueAndRevokedAtAfterAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(new Revoked("b", clock.instant().plusSeconds(60))));
+        TokenRevocationIndex index = new TokenRevocationIndex(apiTokenRepository, new SimpleMeterRegistry(), clock);
+
+        index.load();
+        assertTrue(index.isRevoked("a"));
+        assertFalse(index.isRevoked("b"));
+
+        index.poll();
+        assertTrue(index.isRevoked("b"));
+    }
+
+    @Test
+    void poll_prunesExpiredEntries() {
+        TokenRevocationIndex index = new TokenRevocationIndex(apiTokenRepository, new SimpleMeterRegistry(), clock);
+        index.load();
+        index.add("soon", clock.instant().plusMillis(50));
+
+        assertTrue(index.isRevoked("soon"));
+        clock.advance(Duration.ofMillis(100));
+        index.poll();
+
+        assertFalse(index.isRevoked("soon"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.Role;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.repositories.RoleRepository;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    RoleService roleService;
+
+    @Mock
+    RoleRepository roleRepository;
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+
+    @Mock
+    VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    SessionWatermarkService sessionWatermarkService;
+
+    UserService userService;
+
+    User user = User.builder()
+            .id(7L)
+            .username("u")
+            .roles(Set.of(Role.builder().id(1L).name("ROLE_USER").build()))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        UserPrincipalCache cache = new UserPrincipalCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+        userService = new UserService(userRepository, roleService, roleRepository, passwordEncoder, verifiedTokenCache, cache, sessionWatermarkService);
+    }
+
+    @Test
+    void loadPrincipal_isCached() {
+        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+
+        UserPrincipal first = userService.loadPrincipal("u");
+        UserPrincipal second = userService.loadPrincipal("u");
+
+        assertSame(first, second);
+        assertEquals(7L, first.id());
+        assertEquals(Set.of("ROLE_USER"), first.authorities());
+        verify(userRepository, times(1)).findByUsername("u");
+    }
+
+    @Test
+    void updateAdminEditableFields_evictsPrincipal() {
+        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        userService.loadPrincipal("u");
+
+        userService.updateAdminEditableFields(7L, false, true, false, null);
+        UserPrincipal reloaded = userService.loadPrincipal("u");
+
+        assertFalse(reloaded.isAccountNonLocked());
+        verify(userRepository, times(2)).findByUsername("u");
+        verify(verifiedTokenCache).evictUser(7L);
+        verify(sessionWatermarkService).invalidateSessions(7L);
+    }
+}
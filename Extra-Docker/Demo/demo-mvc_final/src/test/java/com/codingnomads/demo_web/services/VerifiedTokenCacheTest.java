@@ -0,0 +1,52 @@
+package com.codingnomads.demo_web.services;
+
+import com.codingnomads.demo_web.models.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 100);
+
+    UserPrincipal user = new UserPrincipal(7L, "u", true, true, true, Set.of("ROLE_USER"));
+
+    @Test
+    void put_thenHit() {
+        String digest = TokenDigest.sha256Hex("jwt-1");
+        cache.put(digest, new VerifiedTokenCache.Entry("jti-1", 7L, user, Instant.now().plusSeconds(60)));
+
+        VerifiedTokenCache.Entry entry = cache.get(digest);
+
+        assertNotNull(entry);
+        assertEquals("jti-1", entry.jti());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void put_alreadyExpired_isIgnored() {
+        String digest = TokenDigest.sha256Hex("jwt-1");
+        cache.put(digest, new VerifiedTokenCache.Entry("jti-1", 7L, user, Instant.now().minusSeconds(1)));
+
+        assertNull(cache.get(digest));
+    }
+
+    @Test
+    void evictUser_dropsAllTokensOfUser() {
+        cache.put("a", new VerifiedTokenCache.Entry("jti-1", 7L, user, Instant.now().plusSeconds(60)));
+        cache.put("b", new VerifiedTokenCache.Entry("jti-2", 7L, user, Instant.now().plusSeconds(60)));
+        cache.put("c", new VerifiedTokenCache.Entry("jti-3", 8L, user, Instant.now().plusSeconds(60)));
+
+        cache.evictUser(7L);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2.0, meterRegistry.get("api.token.cache.invalidations").tag("reason", "user").counter().count());
+    }
+}
@@ -0,0 +1,83 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.models.Role;
+import com.codingnomads.demo_web.models.User;
+import com.codingnomads.demo_web.models.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactSessionAttributeConverterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CompactSessionAttributeConverter converter = new CompactSessionAttributeConverter(meterRegistry, getClass().getClassLoader());
+
+    User user = User.builder()
+            .id(7L)
+            .username("user")
+            .password("$2a$10$abcdefghijklmnopqrstuvCDEFGHIJKLMNOPQRSTUVWXYZ012345678")
+            .accountLocked(true)
+            .roles(Set.of(Role.builder().id(1L).name("ROLE_USER").build(), Role.builder().id(2L).name("ROLE_ADMIN").build()))
+            .build();
+
+    @Test
+    void securityContext_roundTripsAsPrincipal() {
+        SecurityContext context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+
+        byte[] bytes = converter.serialize(context);
+        SecurityContext restored = (SecurityContext) converter.deserialize(bytes);
+
+        assertEquals(CompactSessionAttributeConverter.MAGIC, bytes[0]);
+        UserPrincipal principal = (UserPrincipal) restored.getAuthentication().getPrincipal();
+        assertEquals(7L, principal.id());
+        assertEquals("user", restored.getAuthentication().getName());
+        assertFalse(principal.isAccountNonLocked());
+        assertTrue(principal.isAccountNonExpired());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), principal.authorities());
+        assertTrue(restored.getAuthentication().isAuthenticated());
+        assertNull(restored.getAuthentication().getCredentials());
+    }
+
+    @Test
+    void securityContext_isMuchSmallerThanJdkSerialization() {
+        SecurityContext context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+
+        int compact = converter.serialize(context).length;
+        int jdk = new SerializingConverter().convert(context).length;
+
+        assertTrue(compact * 10 < jdk, "compact=" + compact + " jdk=" + jdk);
+        assertEquals(compact, meterRegistry.get("spring.session.attribute.size").tag("codec", "compact").summary().totalAmount());
+    }
+
+    @Test
+    void otherAttributes_fallBackToJdkSerialization() {
+        DefaultCsrfToken csrf = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "abc");
+
+        byte[] bytes = converter.serialize(csrf);
+
+        assertEquals((byte) 0xAC, bytes[0]);
+        assertEquals("abc", ((DefaultCsrfToken) converter.deserialize(bytes)).getToken());
+        assertEquals(1, meterRegistry.get("spring.session.attribute.size").tag("codec", "jdk").summary().count());
+    }
+
+    @Test
+    void jdkSerializedSecurityContext_fromOlderSessions_isStillReadable() {
+        SecurityContext context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+        byte[] legacy = new SerializingConverter().convert(context);
+
+        SecurityContext restored = (SecurityContext) converter.deserialize(legacy);
+
+        assertEquals("user", restored.getAuthentication().getName());
+    }
+}
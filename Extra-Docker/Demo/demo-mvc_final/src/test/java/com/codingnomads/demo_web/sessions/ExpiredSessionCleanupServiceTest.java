@@ -0,0 +1,61 @@
+package com.codingnomads.demo_web.sessions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "session.cleanup.chunk-size=2",
+        "session.cleanup.pause=PT0S"
+})
+class ExpiredSessionCleanupServiceTest {
+
+    @Autowired
+    ExpiredSessionCleanupService cleanupService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cleanup_deletesExpiredSessionsInChunks_andTheirAttributes() {
+        Instant now = Instant.now();
+        String live = insert(now.plusSeconds(3600));
+        for (int i = 0; i < 5; i++) {
+            insert(now.minusSeconds(60 + i));
+        }
+
+        long deleted = cleanupService.cleanup(now);
+
+        assertEquals(5, deleted);
+        assertEquals(1, count("SELECT COUNT(*) FROM SPRING_SESSION WHERE PRIMARY_ID = ?", live));
+        assertEquals(0, count("SELECT COUNT(*) FROM SPRING_SESSION_ATTRIBUTES a WHERE NOT EXISTS "
+                + "(SELECT 1 FROM SPRING_SESSION s WHERE s.PRIMARY_ID = a.SESSION_PRIMARY_ID)"));
+        jdbcTemplate.update("DELETE FROM SPRING_SESSION WHERE PRIMARY_ID = ?", live);
+    }
+
+    private String insert(Instant expiresAt) {
+        String id = UUID.randomUUID().toString();
+        long expiry = expiresAt.toEpochMilli();
+        jdbcTemplate.update("""
+                        INSERT INTO SPRING_SESSION (PRIMARY_ID, SESSION_ID, CREATION_TIME, LAST_ACCESS_TIME,
+                                                    MAX_INACTIVE_INTERVAL, EXPIRY_TIME, PRINCIPAL_NAME)
+                        VALUES (?, ?, ?, ?, 1800, ?, 'user')""",
+                id, UUID.randomUUID().toString(), expiry - 1_800_000, expiry - 1_800_000, expiry);
+        jdbcTemplate.update("INSERT INTO SPRING_SESSION_ATTRIBUTES VALUES (?, 'a', ?)", id, new byte[]{1});
+        return id;
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
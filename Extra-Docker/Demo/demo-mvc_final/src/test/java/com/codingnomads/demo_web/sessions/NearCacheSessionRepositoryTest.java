@@ -0,0 +1,123 @@
+package com.codingnomads.demo_web.sessions;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSession;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "session.near-cache.enabled=true",
+        // flushed explicitly by the tests
+        "session.near-cache.flush-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class NearCacheSessionRepositoryTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    NearCacheSessionRepository sessionRepository;
+
+    @Test
+    void pageViews_deferLastAccessTime_untilFlush() throws Exception {
+        Cookie session = login();
+        String id = sessionId(session);
+        // The first page stores the CSRF token, which is an attribute change and is written through
+        mockMvc.perform(get("/profile").cookie(session)).andExpect(status().isOk());
+        sessionRepository.flush();
+        // Move the stored access time back instead of waiting for the clock to tick
+        jdbcTemplate.update("UPDATE SPRING_SESSION SET LAST_ACCESS_TIME = LAST_ACCESS_TIME - 60000 WHERE SESSION_ID = ?", id);
+        long stored = lastAccessTime(id);
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/profile").cookie(session)).andExpect(status().isOk());
+        }
+        assertEquals(stored, lastAccessTime(id));
+
+        sessionRepository.flush();
+        assertTrue(lastAccessTime(id) > stored);
+    }
+
+    @Test
+    void logout_removesSession_andCachedCopy() throws Exception {
+        Cookie session = login();
+        mockMvc.perform(get("/profile").cookie(session)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/logout").with(csrf()).cookie(session)).andExpect(status().is3xxRedirection());
+
+        assertNull(sessionRepository.findById(sessionId(session)));
+        mockMvc.perform(get("/profile").cookie(session))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+
+    @Test
+    void touches_doNotExtendTheTtl_soOtherNodesChangesStillShowUp() {
+        MapSessionRepository store = spy(new MapSessionRepository(new ConcurrentHashMap<>()));
+        MapSession created = store.createSession();
+        store.save(created);
+        AtomicLong nanos = new AtomicLong();
+        NearCacheSessionRepository repository = new NearCacheSessionRepository(store, null, null,
+                new SimpleMeterRegistry(), "SPRING_SESSION", Duration.ofSeconds(30), 100, nanos::get);
+
+        repository.findById(created.getId());
+        // Requests keep touching the cached session, every 20 seconds
+        for (int i = 0; i < 2; i++) {
+            nanos.addAndGet(Duration.ofSeconds(20).toNanos());
+            NearCacheSessionRepository.CachedSession session = repository.findById(created.getId());
+            session.setLastAccessedTime(Instant.now());
+            repository.save(session);
+        }
+
+        // 40 seconds after the load the entry is gone even though it was touched, so the store is asked again
+        verify(store, times(2)).findById(created.getId());
+    }
+
+    private Cookie login() throws Exception {
+        Cookie session = mockMvc.perform(formLogin("/login").user("user").password("user"))
+                .andExpect(status().is3xxRedirection())
+                .andReturn().getResponse().getCookie("SESSION");
+        assertNotNull(session);
+        return session;
+    }
+
+    private static String sessionId(Cookie cookie) {
+        return new String(Base64.getDecoder().decode(cookie.getValue()), StandardCharsets.UTF_8);
+    }
+
+    private long lastAccessTime(String id) {
+        return jdbcTemplate.queryForObject("SELECT LAST_ACCESS_TIME FROM SPRING_SESSION WHERE SESSION_ID = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,83 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.github.fppt.jedismock.RedisServer;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.data.redis.RedisSessionRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@ActiveProfiles("redis-session")
+@AutoConfigureMockMvc
+class RedisSessionStoreTest {
+
+    static RedisServer redis;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) throws IOException {
+        redis = RedisServer.newRedisServer().start();
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", redis::getBindPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    StringRedisTemplate redisTemplate;
+
+    @Autowired
+    SessionRepository<?> sessionRepository;
+
+    @Test
+    void sessionsLiveInRedis_andLogoutRemovesThem() throws Exception {
+        assertInstanceOf(RedisSessionRepository.class, sessionRepository);
+
+        Cookie session = mockMvc.perform(formLogin("/login").user("user").password("user"))
+                .andExpect(status().is3xxRedirection())
+                .andReturn().getResponse().getCookie("SESSION");
+        assertNotNull(session);
+        assertTrue(session.isHttpOnly());
+        String key = "spring:session:sessions:" + new String(Base64.getDecoder().decode(session.getValue()), StandardCharsets.UTF_8);
+        assertTrue(redisTemplate.hasKey(key));
+
+        mockMvc.perform(get("/profile").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("user")));
+
+        mockMvc.perform(post("/logout").with(csrf()).cookie(session)).andExpect(status().is3xxRedirection());
+        assertFalse(redisTemplate.hasKey(key));
+    }
+}
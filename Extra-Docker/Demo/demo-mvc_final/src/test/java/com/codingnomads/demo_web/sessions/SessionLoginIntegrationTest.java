@@ -0,0 +1,54 @@
+package com.codingnomads.demo_web.sessions;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class SessionLoginIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void login_storesCompactSecurityContext_andLaterRequestsAreAuthenticated() throws Exception {
+        MvcResult login = mockMvc.perform(formLogin("/login").user("user").password("user"))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+        Cookie session = login.getResponse().getCookie("SESSION");
+        assertNotNull(session);
+
+        byte[] stored = jdbcTemplate.queryForObject("""
+                        SELECT a.ATTRIBUTE_BYTES FROM SPRING_SESSION_ATTRIBUTES a
+                          JOIN SPRING_SESSION s ON s.PRIMARY_ID = a.SESSION_PRIMARY_ID
+                         WHERE s.PRINCIPAL_NAME = 'user' AND a.ATTRIBUTE_NAME = 'SPRING_SECURITY_CONTEXT'
+                         ORDER BY s.CREATION_TIME DESC LIMIT 1""",
+                byte[].class);
+        assertEquals(CompactSessionAttributeConverter.MAGIC, stored[0]);
+
+        mockMvc.perform(get("/profile").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("user")));
+    }
+}
@@ -0,0 +1,133 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.MutableClock;
+import com.codingnomads.demo_web.repositories.UserRepository;
+import com.codingnomads.demo_web.services.SessionWatermarkService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "mvc.auth-cookie.enabled=true",
+        "mvc.auth-cookie.secret=test-cookie-secret-test-cookie-secret"
+})
+@AutoConfigureMockMvc
+class SignedCookieLoginTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    SessionWatermarkService sessionWatermarkService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    MutableClock clock;
+
+    @TestConfiguration
+    static class Clocks {
+        @Bean
+        @Primary
+        MutableClock mutableClock() {
+            return new MutableClock(Instant.now());
+        }
+    }
+
+    @BeforeEach
+    void moveOnFromEarlierTests() {
+        // Logins must come after any watermark an earlier test set
+        clock.advance(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void login_setsSignedCookie_withoutCreatingASession() throws Exception {
+        MockHttpServletResponse login = login();
+        Cookie auth = login.getCookie("AUTH");
+        assertNotNull(auth);
+        assertNull(login.getCookie("SESSION"));
+
+        MockHttpServletResponse page = mockMvc.perform(get("/profile").cookie(auth))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("user")))
+                .andReturn().getResponse();
+        assertNull(page.getCookie("SESSION"));
+    }
+
+    @Test
+    void invalidatingSessions_rejectsCookiesIssuedBefore() throws Exception {
+        Cookie auth = login().getCookie("AUTH");
+        clock.advance(Duration.ofMillis(1));
+
+        sessionWatermarkService.invalidateSessions(userRepository.findByUsername("user").orElseThrow().getId());
+
+        mockMvc.perform(get("/profile").cookie(auth))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+
+    @Test
+    void logout_alsoRejectsCopiesOfTheCookie() throws Exception {
+        Cookie auth = login().getCookie("AUTH");
+        MockHttpServletResponse page = mockMvc.perform(get("/todos").cookie(auth))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        mockMvc.perform(post("/logout").cookie(auth, page.getCookie("XSRF-TOKEN")).param("_csrf", csrfTokenOf(page)))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/login?logout"));
+
+        mockMvc.perform(get("/profile").cookie(auth))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+
+    /**
+     * Logs in like a browser: the CSRF token comes from the login page and its cookie (MockMvc's csrf() would swap in
+     * a session-backed token repository).
+     */
+    private MockHttpServletResponse login() throws Exception {
+        MockHttpServletResponse page = mockMvc.perform(get("/login")).andReturn().getResponse();
+        assertNull(page.getCookie("SESSION"));
+        return mockMvc.perform(post("/login")
+                        .cookie(page.getCookie("XSRF-TOKEN"))
+                        .param("username", "user")
+                        .param("password", "user")
+                        .param("_csrf", csrfTokenOf(page)))
+                .andExpect(status().is3xxRedirection())
+                .andReturn().getResponse();
+    }
+
+    private static String csrfTokenOf(MockHttpServletResponse page) throws Exception {
+        Matcher csrf = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"").matcher(page.getContentAsString());
+        assertTrue(csrf.find());
+        return csrf.group(1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.codingnomads.demo_web.sessions;
+
+import com.codingnomads.demo_web.models.UserPrincipal;
+import com.codingnomads.demo_web.services.SessionWatermarkService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SignedCookieSecurityContextRepositoryTest {
+
+    SessionWatermarkService watermarks = mock(SessionWatermarkService.class);
+    SignedCookieSecurityContextRepository repository = new SignedCookieSecurityContextRepository(
+            "test-cookie-secret-test-cookie-secret", "AUTH", Duration.ofDays(7), false, watermarks, Clock.systemUTC());
+
+    UserPrincipal principal = new UserPrincipal(7L, "user", true, true, true, Set.of("ROLE_USER"));
+
+    @Test
+    void savedLogin_isRestoredFromTheCookie() {
+        when(watermarks.validAfter(7L)).thenReturn(Instant.EPOCH);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        repository.saveContext(CompactSessionAttributeConverter.securityContext(principal), new MockHttpServletRequest(), response);
+        SecurityContext restored = load(response.getCookie("AUTH").getValue());
+
+        assertTrue(response.getCookie("AUTH").isHttpOnly());
+        assertEquals(principal, restored.getAuthentication().getPrincipal());
+        assertTrue(restored.getAuthentication().isAuthenticated());
+    }
+
+    @Test
+    void missingSecret_failsFast() {
+        assertThrows(IllegalStateException.class, () -> new SignedCookieSecurityContextRepository(
+                "", "AUTH", Duration.ofDays(7), false, watermarks, Clock.systemUTC()));
+    }
+
+    @Test
+    void tamperedCookie_isIgnored() {
+        String value = repository.sign(new SignedCookieSecurityContextRepository.Payload(
+                principal, Instant.now(), Instant.now().plusSeconds(60)));
+        UserPrincipal admin = new UserPrincipal(7L, "user", true, true, true, Set.of("ROLE_ADMIN"));
+        String forgedBody = repository.sign(new SignedCookieSecurityContextRepository.Payload(
+                admin, Instant.now(), Instant.now().plusSeconds(60))).split("\\.")[0];
+
+        assertNull(load(forgedBody + "." + value.split("\\.")[1]).getAuthentication());
+        assertNull(load("garbage").getAuthentication());
+    }
+
+    @Test
+    void expiredCookie_isIgnored() {
+        String value = repository.sign(new SignedCookieSecurityContextRepository.Payload(
+                principal, Instant.now().minusSeconds(120), Instant.now().minusSeconds(60)));
+
+        assertNull(load(value).getAuthentication());
+    }
+
+    @Test
+    void cookieIssuedBeforeWatermark_isIgnored() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        when(watermarks.validAfter(anyLong())).thenReturn(issuedAt.plusSeconds(1));
+        String value = repository.sign(new SignedCookieSecurityContextRepository.Payload(
+                principal, issuedAt, issuedAt.plusSeconds(3600)));
+
+        assertNull(load(value).getAuthentication());
+    }
+
+    @Test
+    void savingEmptyContext_clearsCookie() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("AUTH", "x.y"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        repository.saveContext(SecurityContextHolder.createEmptyContext(), request, response);
+
+        assertEquals(0, response.getCookie("AUTH").getMaxAge());
+    }
+
+    private SecurityContext load(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("AUTH", value));
+        return repository.loadDeferredContext(request).get();
+    }
+}